@@ -0,0 +1,58 @@
+package com.legendaryUser.legendary.config;
+
+import com.legendaryUser.legendary.security.ConcurrencyLimitFilter;
+import com.legendaryUser.legendary.util.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.security.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilterConfig {
+
+    @Value("${app.security.concurrency-limit.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${app.security.concurrency-limit.min-limit:8}")
+    private int minLimit;
+
+    @Value("${app.security.concurrency-limit.max-limit:400}")
+    private int maxLimit;
+
+    @Value("${app.security.concurrency-limit.smoothing:0.1}")
+    private double smoothing;
+
+    @Value("${app.security.concurrency-limit.tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${app.security.concurrency-limit.short-window:10}")
+    private int shortWindow;
+
+    @Value("${app.security.concurrency-limit.baseline-window:600}")
+    private int baselineWindow;
+
+    @Bean
+    public GradientConcurrencyLimit authConcurrencyLimit(MeterRegistry meterRegistry) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                smoothing, tolerance, shortWindow, baselineWindow, ConcurrencyLimitFilter.latencyClasses());
+        Gauge.builder("auth.concurrency.limit", limit, GradientConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder("auth.concurrency.in_flight", limit, GradientConcurrencyLimit::getInFlight).register(meterRegistry);
+        return limit;
+    }
+
+    // After RateLimitFilter, so requests it refuses never take a slot, and still ahead of Spring Security
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(GradientConcurrencyLimit authConcurrencyLimit,
+                                                                                 MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(authConcurrencyLimit, meterRegistry));
+        registration.addUrlPatterns("/auth/*", "/api/users", "/api/users/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 5);
+        return registration;
+    }
+}
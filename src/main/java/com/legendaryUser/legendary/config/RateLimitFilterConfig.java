@@ -0,0 +1,24 @@
+package com.legendaryUser.legendary.config;
+
+import com.legendaryUser.legendary.security.RateLimitFilter;
+import com.legendaryUser.legendary.service.HeavyHitterDetector;
+import com.legendaryUser.legendary.service.RateLimiter;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitFilterConfig {
+
+    // Runs before springSecurityFilterChain so a rejected request never reaches authentication
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter,
+                                                                   HeavyHitterDetector heavyHitterDetector) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, heavyHitterDetector));
+        registration.addUrlPatterns("/auth/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+}
@@ -0,0 +1,92 @@
+package com.legendaryUser.legendary.config;
+
+import com.legendaryUser.legendary.service.RateLimitDimension;
+import com.legendaryUser.legendary.service.RateLimitEndpoint;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One token bucket per key of the chosen dimension, refilled at refillTokens per
+ * refillPeriod up to capacity. Each endpoint the policy covers spends its own cost per
+ * request, so one budget (say SMTP sends or BCrypt time) can be shared across endpoints
+ * in proportion to how expensive each of them is.
+ */
+public class RateLimitPolicy {
+    private String name;
+    private RateLimitDimension dimension = RateLimitDimension.IP;
+    private long capacity;
+    private long refillTokens;
+    private Duration refillPeriod = Duration.ofHours(1);
+    private Map<RateLimitEndpoint, Integer> endpoints = new EnumMap<>(RateLimitEndpoint.class);
+    // Cluster engine only: permits a node takes from the shared bucket at a time, 0 for the engine default
+    private long leaseSize;
+
+    // 0 when the policy does not apply to the endpoint
+    public int costOf(RateLimitEndpoint endpoint) {
+        Integer cost = endpoints.get(endpoint);
+        return cost != null ? cost : 0;
+    }
+
+    // Idle time after which a drained bucket is full again
+    public long fullRefillMillis() {
+        return (refillPeriod.toMillis() * capacity + refillTokens - 1) / refillTokens;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public RateLimitDimension getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(RateLimitDimension dimension) {
+        this.dimension = dimension;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getRefillTokens() {
+        return refillTokens;
+    }
+
+    public void setRefillTokens(long refillTokens) {
+        this.refillTokens = refillTokens;
+    }
+
+    public Duration getRefillPeriod() {
+        return refillPeriod;
+    }
+
+    public void setRefillPeriod(Duration refillPeriod) {
+        this.refillPeriod = refillPeriod;
+    }
+
+    public long getLeaseSize() {
+        return leaseSize;
+    }
+
+    public void setLeaseSize(long leaseSize) {
+        this.leaseSize = leaseSize;
+    }
+
+    public Map<RateLimitEndpoint, Integer> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<RateLimitEndpoint, Integer> endpoints) {
+        this.endpoints = endpoints;
+    }
+}
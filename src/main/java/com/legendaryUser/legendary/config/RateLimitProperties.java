@@ -0,0 +1,70 @@
+package com.legendaryUser.legendary.config;
+
+import com.legendaryUser.legendary.service.RateLimitEndpoint;
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate-limit policies bound from app.security.rate-limit.policies.&lt;name&gt;. Policies are
+ * indexed per endpoint once at startup so a request walks a prebuilt array.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.security.rate-limit")
+public class RateLimitProperties {
+    private static final RateLimitPolicy[] NONE = new RateLimitPolicy[0];
+
+    private Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+
+    private final Map<RateLimitEndpoint, RateLimitPolicy[]> byEndpoint = new EnumMap<>(RateLimitEndpoint.class);
+
+    @PostConstruct
+    void index() {
+        for (Map.Entry<String, RateLimitPolicy> entry : policies.entrySet()) {
+            RateLimitPolicy policy = entry.getValue();
+            policy.setName(entry.getKey());
+            if (policy.getCapacity() <= 0 || policy.getRefillTokens() <= 0 || policy.getRefillPeriod().isZero()) {
+                throw new IllegalStateException("Rate limit policy '" + entry.getKey()
+                        + "' needs a positive capacity, refill-tokens and refill-period");
+            }
+            if (policy.getLeaseSize() < 0 || policy.getLeaseSize() > policy.getCapacity()) {
+                throw new IllegalStateException("Rate limit policy '" + entry.getKey() + "' has lease-size "
+                        + policy.getLeaseSize() + ", outside 0.." + policy.getCapacity());
+            }
+            for (Map.Entry<RateLimitEndpoint, Integer> cost : policy.getEndpoints().entrySet()) {
+                if (cost.getValue() <= 0 || cost.getValue() > policy.getCapacity()) {
+                    throw new IllegalStateException("Rate limit policy '" + entry.getKey() + "' has cost "
+                            + cost.getValue() + " for " + cost.getKey() + ", outside 1.." + policy.getCapacity());
+                }
+            }
+        }
+
+        for (RateLimitEndpoint endpoint : RateLimitEndpoint.values()) {
+            List<RateLimitPolicy> matching = new ArrayList<>();
+            for (RateLimitPolicy policy : policies.values()) {
+                if (policy.costOf(endpoint) > 0) {
+                    matching.add(policy);
+                }
+            }
+            byEndpoint.put(endpoint, matching.toArray(NONE));
+        }
+    }
+
+    public RateLimitPolicy[] policiesFor(RateLimitEndpoint endpoint) {
+        return byEndpoint.getOrDefault(endpoint, NONE);
+    }
+
+    public Map<String, RateLimitPolicy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(Map<String, RateLimitPolicy> policies) {
+        this.policies = policies;
+    }
+}
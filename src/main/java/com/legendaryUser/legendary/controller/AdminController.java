@@ -2,6 +2,7 @@ package com.legendaryUser.legendary.controller;
 
 
 import com.legendaryUser.legendary.service.AuthService;
+import com.legendaryUser.legendary.service.HeavyHitterDetector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,9 @@ public class AdminController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private HeavyHitterDetector heavyHitterDetector;
+
     @PostMapping("/promote/{email}")
     public ResponseEntity<?> promoteToAdmin(@PathVariable String email) {
         try {
@@ -43,6 +47,18 @@ public class AdminController {
         }
     }
 
+    @PostMapping("/revoke-tokens/{email}")
+    public ResponseEntity<?> revokeAllTokens(@PathVariable String email) {
+        try {
+            authService.revokeAllTokens(email);
+            logger.info("All tokens revoked for user {}", email);
+            return ResponseEntity.ok().body("All tokens for " + email + " have been revoked");
+        } catch (RuntimeException e) {
+            logger.error("Failed to revoke tokens for user {}: {}", email, e.getMessage());
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/check-admin/{email}")
     public ResponseEntity<?> checkAdminStatus(@PathVariable String email) {
         try {
@@ -53,5 +69,10 @@ public class AdminController {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
-}
 
+    // Current top offenders per email and subnet, with the temporary blocks in force
+    @GetMapping("/heavy-hitters")
+    public ResponseEntity<?> heavyHitters() {
+        return ResponseEntity.ok(heavyHitterDetector.report());
+    }
+}
@@ -3,18 +3,22 @@ package com.legendaryUser.legendary.controller;
 import com.legendaryUser.legendary.dto.AuthResponse;
 import com.legendaryUser.legendary.dto.LoginRequest;
 import com.legendaryUser.legendary.dto.OtpVerificationRequest;
+import com.legendaryUser.legendary.dto.RefreshTokenRequest;
 import com.legendaryUser.legendary.dto.RegisterRequest;
 import com.legendaryUser.legendary.exception.EmailAlreadyExistsException;
 import com.legendaryUser.legendary.exception.InvalidTokenException;
 import com.legendaryUser.legendary.exception.RateLimitExceededException;
+import com.legendaryUser.legendary.exception.ServiceOverloadedException;
 import com.legendaryUser.legendary.exception.TokenExpiredException;
 import com.legendaryUser.legendary.service.AuthService;
 import com.legendaryUser.legendary.service.EmailService;
+import com.legendaryUser.legendary.util.ClientIpResolver;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -86,6 +90,19 @@ public class AuthController {
 
             return ResponseEntity.status(429).body(errorResponse); // 429 Too Many Requests
 
+        } catch (ServiceOverloadedException e) {
+            logger.warn("Registration failed - password hashing pool saturated");
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("errorCode", "SERVICE_OVERLOADED");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(errorResponse); // 503 Service Unavailable
+
         } catch (Exception e) {
             logger.error("Registration failed for {}: {}", registerRequest.getEmail(), e.getMessage(), e);
 
@@ -173,6 +190,16 @@ public class AuthController {
             logger.info("Verification email resent successfully for: {}", email);
             return ResponseEntity.ok().body(response);
 
+        } catch (RateLimitExceededException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("email", email);
+            errorResponse.put("errorCode", "RATE_LIMIT_EXCEEDED");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+
+            return ResponseEntity.status(429).body(errorResponse); // 429 Too Many Requests
+
         } catch (Exception e) {
             logger.error("Resend verification failed for {}: {}", email, e.getMessage(), e);
 
@@ -195,6 +222,8 @@ public class AuthController {
             authService.requestOtp(loginRequest, clientIp);
 
             return ResponseEntity.ok().body("OTP sent to your email address.");
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity.status(429).body(e.getMessage());
         } catch (Exception e) {
             logger.error("OTP request failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -202,28 +231,76 @@ public class AuthController {
     }
 
     @PostMapping("/verify-otp")
-    public ResponseEntity<?> verifyOtp(@Valid @RequestBody OtpVerificationRequest otpRequest) {
+    public ResponseEntity<?> verifyOtp(@Valid @RequestBody OtpVerificationRequest otpRequest,
+                                       HttpServletRequest request) {
         try {
-            AuthResponse authResponse = authService.verifyOtp(otpRequest);
+            AuthResponse authResponse = authService.verifyOtp(otpRequest, getClientIp(request));
             return ResponseEntity.ok(authResponse);
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity.status(429).body(e.getMessage());
         } catch (Exception e) {
             logger.error("OTP verification failed: {}", e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest refreshRequest) {
+        try {
+            AuthResponse authResponse = authService.refresh(refreshRequest.getRefreshToken());
+            return ResponseEntity.ok(authResponse);
+        } catch (InvalidTokenException | TokenExpiredException e) {
+            logger.warn("Token refresh failed: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("errorCode", e instanceof TokenExpiredException ? "TOKEN_EXPIRED" : "INVALID_TOKEN");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(401).body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Token refresh failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) RefreshTokenRequest refreshRequest,
+                                    HttpServletRequest request) {
+        String headerAuth = request.getHeader("Authorization");
+        String refreshToken = refreshRequest != null ? refreshRequest.getRefreshToken() : null;
+        boolean hasBearer = headerAuth != null && headerAuth.startsWith("Bearer ");
+        if (!hasBearer && (refreshToken == null || refreshToken.isEmpty())) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "No bearer or refresh token supplied.");
+            errorResponse.put("errorCode", "INVALID_TOKEN");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(400).body(errorResponse);
         }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
+
+        try {
+            authService.logout(hasBearer ? headerAuth.substring(7) : null, refreshToken);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Logged out successfully.");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.ok().body(response);
+
+        } catch (InvalidTokenException e) {
+            logger.warn("Logout failed - {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("errorCode", "INVALID_TOKEN");
+            errorResponse.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.status(400).body(errorResponse);
         }
-        return ip;
     }
-}
 
+    private String getClientIp(HttpServletRequest request) {
+        return ClientIpResolver.resolve(request);
+    }
+}
@@ -0,0 +1,46 @@
+package com.legendaryUser.legendary.controller;
+
+import com.legendaryUser.legendary.security.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/.well-known")
+public class JwksController {
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    // Keep below app.jwt.key-rotation.publish-lead-ms so caches see a new key before it signs
+    @Value("${app.jwt.jwks.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    @GetMapping("/jwks.json")
+    public ResponseEntity<String> jwks(ServletWebRequest request) {
+        String etag = keyRing.getJwksEtag();
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+
+        // Handles weak validators, lists and "*" in If-None-Match, and sets the 304 status and ETag
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(keyRing.getJwksJson());
+    }
+}
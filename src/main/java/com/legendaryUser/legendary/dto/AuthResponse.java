@@ -16,6 +16,7 @@ public class AuthResponse {
     private String email;
     private String firstName;
     private String lastName;
+    private String refreshToken;
 
     public AuthResponse(){
 
@@ -89,5 +90,15 @@ public class AuthResponse {
     public void setLastName(String lastName) {
         this.lastName = lastName;
     }
+
+    // Getter for refreshToken
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    // Setter for refreshToken
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
 }
 
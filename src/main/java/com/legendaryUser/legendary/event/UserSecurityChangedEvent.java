@@ -0,0 +1,70 @@
+package com.legendaryUser.legendary.event;
+
+/**
+ * Published by AuthService whenever something that feeds a user's principal changes
+ * (verification, role, lock state). Caches of users, principals and tokens evict on it.
+ * Events replayed from another node's change log are marked remote and are not logged again.
+ */
+public class UserSecurityChangedEvent {
+
+    public enum Reason {
+        EMAIL_VERIFIED(false),
+        ROLE_CHANGED(true),
+        LOCKED(true),
+        UNLOCKED(false),
+        TOKENS_REVOKED(true);
+
+        private final boolean invalidatesTokens;
+
+        Reason(boolean invalidatesTokens) {
+            this.invalidatesTokens = invalidatesTokens;
+        }
+
+        public boolean invalidatesTokens() {
+            return invalidatesTokens;
+        }
+    }
+
+    private final Long userId;
+    private final String email;
+    private final long securityVersion;
+    private final Reason reason;
+    private final boolean remote;
+
+    public UserSecurityChangedEvent(Long userId, String email, long securityVersion, Reason reason) {
+        this(userId, email, securityVersion, reason, false);
+    }
+
+    public UserSecurityChangedEvent(Long userId, String email, long securityVersion, Reason reason, boolean remote) {
+        this.userId = userId;
+        this.email = email;
+        this.securityVersion = securityVersion;
+        this.reason = reason;
+        this.remote = remote;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public long getSecurityVersion() {
+        return securityVersion;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSecurityChangedEvent{userId=" + userId + ", securityVersion=" + securityVersion + ", reason=" + reason + ", remote=" + remote + "}";
+    }
+}
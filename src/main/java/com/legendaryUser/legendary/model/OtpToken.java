@@ -10,7 +10,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "otp_tokens")
+@Table(name = "otp_tokens", indexes = {
+        // Serves the latest-live-OTP lookup and the invalidation of outstanding OTPs, both per user
+        @Index(name = "idx_otp_tokens_user_used_expiry", columnList = "user_id, used, expiry_date, created_at")
+})
 @Data
 @Getter
 @Setter
@@ -39,10 +42,22 @@ public class OtpToken {
     @Column(nullable = false)
     private boolean used = false;
 
+    // Deliveries of this code, the first included; bumped when a repeated request re-sends it
+    @Column(name = "send_count", nullable = false)
+    private int sendCount = 1;
+
+    @Column(name = "last_sent_at", nullable = false)
+    private LocalDateTime lastSentAt;
+
     public OtpToken(String token, User user) {
         this.token = token;
         this.user = user;
         this.expiryDate = calculateExpiryDate(EXPIRATION_MINUTES);
+        this.lastSentAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
     }
 
     public String getToken() {
@@ -73,6 +88,14 @@ public class OtpToken {
         return createdAt;
     }
 
+    public int getSendCount() {
+        return sendCount;
+    }
+
+    public LocalDateTime getLastSentAt() {
+        return lastSentAt;
+    }
+
     public boolean isUsed() {
         return used;
     }
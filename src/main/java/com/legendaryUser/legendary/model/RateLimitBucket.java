@@ -0,0 +1,92 @@
+package com.legendaryUser.legendary.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Cluster-wide token bucket for one key of one rate-limit policy. Tokens are stored in
+ * thousandths of a permit as of updatedAtMillis; refill is applied when the row is next
+ * locked. The key is a SHA-256 of policy and client key, so no addresses or emails are stored.
+ *
+ * The key is assigned, so a bucket built with the constructor reports itself new and is
+ * persisted: if another node created the row first the INSERT fails, rather than a merge
+ * silently overwriting that node's debit.
+ */
+@Entity
+@Table(name = "rate_limit_bucket", indexes = {
+        @Index(name = "idx_rate_limit_bucket_updated_at", columnList = "updated_at_ms")
+})
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+public class RateLimitBucket implements Persistable<String> {
+
+    @Id
+    @Column(name = "bucket_key", length = 64)
+    private String bucketKey;
+
+    @Column(nullable = false, length = 64)
+    private String policy;
+
+    @Column(name = "milli_tokens", nullable = false)
+    private long milliTokens;
+
+    @Column(name = "updated_at_ms", nullable = false)
+    private long updatedAtMillis;
+
+    @Transient
+    private transient boolean newBucket;
+
+    public RateLimitBucket(String bucketKey, String policy, long milliTokens, long updatedAtMillis) {
+        this.bucketKey = bucketKey;
+        this.policy = policy;
+        this.milliTokens = milliTokens;
+        this.updatedAtMillis = updatedAtMillis;
+        this.newBucket = true;
+    }
+
+    @Override
+    public String getId() {
+        return bucketKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newBucket;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        newBucket = false;
+    }
+
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public long getMilliTokens() {
+        return milliTokens;
+    }
+
+    public void setMilliTokens(long milliTokens) {
+        this.milliTokens = milliTokens;
+    }
+
+    public long getUpdatedAtMillis() {
+        return updatedAtMillis;
+    }
+
+    public void setUpdatedAtMillis(long updatedAtMillis) {
+        this.updatedAtMillis = updatedAtMillis;
+    }
+}
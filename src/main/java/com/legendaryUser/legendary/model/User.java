@@ -71,6 +71,14 @@ public class User {
     @Column(nullable = false)
     private String role = "USER";
 
+    // Bumped whenever role or lock state changes so previously issued JWTs stop being accepted
+    @Column(name = "security_version", nullable = false)
+    private long securityVersion = 0;
+
+    // Current nonce of signed verification links; replaced on resend, cleared once verified
+    @Column(name = "verification_nonce", length = 32)
+    private String verificationNonce;
+
     public User() {
         this.createdAt = LocalDateTime.now();
     }
@@ -177,6 +185,26 @@ public class User {
         this.role = role;
     }
 
+    public long getSecurityVersion() {
+        return securityVersion;
+    }
+
+    public void setSecurityVersion(long securityVersion) {
+        this.securityVersion = securityVersion;
+    }
+
+    public String getVerificationNonce() {
+        return verificationNonce;
+    }
+
+    public void setVerificationNonce(String verificationNonce) {
+        this.verificationNonce = verificationNonce;
+    }
+
+    public long bumpSecurityVersion() {
+        return ++this.securityVersion;
+    }
+
     public void lockAccount() {
         this.accountNonLocked = false;
         this.lockTime = LocalDateTime.now();
@@ -0,0 +1,83 @@
+package com.legendaryUser.legendary.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only record of security-relevant user changes. Written in the same transaction
+ * as the change itself and tailed by every node to evict its local caches.
+ */
+@Entity
+@Table(name = "user_change_log", indexes = {
+        @Index(name = "idx_user_change_log_created_at", columnList = "created_at")
+})
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserChangeLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "security_version", nullable = false)
+    private long securityVersion;
+
+    @Column(nullable = false, length = 32)
+    private String reason;
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public UserChangeLog(Long userId, String email, long securityVersion, String reason, String nodeId) {
+        this.userId = userId;
+        this.email = email;
+        this.securityVersion = securityVersion;
+        this.reason = reason;
+        this.nodeId = nodeId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public long getSecurityVersion() {
+        return securityVersion;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
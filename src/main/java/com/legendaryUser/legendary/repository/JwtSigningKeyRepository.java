@@ -0,0 +1,31 @@
+package com.legendaryUser.legendary.repository;
+
+import com.legendaryUser.legendary.model.JwtSigningKey;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, Long> {
+
+    @Query("SELECT k FROM JwtSigningKey k WHERE k.algorithm = :algorithm AND (k.expiresAt IS NULL OR k.expiresAt > :now) ORDER BY k.activatesAt ASC")
+    List<JwtSigningKey> findPublishedKeys(@Param("algorithm") String algorithm, @Param("now") LocalDateTime now);
+
+    // Serializes rotation across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT k FROM JwtSigningKey k WHERE k.algorithm = :algorithm AND (k.expiresAt IS NULL OR k.expiresAt > :now) ORDER BY k.activatesAt ASC")
+    List<JwtSigningKey> lockPublishedKeys(@Param("algorithm") String algorithm, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM JwtSigningKey k WHERE k.expiresAt < :now")
+    void deleteAllExpiredSince(@Param("now") LocalDateTime now);
+}
@@ -20,18 +20,37 @@ public interface OtpTokenRepository extends JpaRepository<OtpToken, Long> {
     Optional<OtpToken> findByToken(String token);
     Optional<OtpToken> findByUserId(Long userId);
 
-    @Query("SELECT ot FROM OtpToken ot WHERE ot.user.email = :email AND ot.used = false AND ot.expiryDate > :now ORDER BY ot.createdAt DESC")
-    Optional<OtpToken> findLatestValidOtpByUserEmail(@Param("email") String email, @Param("now") LocalDateTime now);
+    // Index range on (user_id, used, expiry_date); at most one live row per user once older ones are invalidated
+    Optional<OtpToken> findFirstByUserIdAndUsedFalseAndExpiryDateAfterOrderByCreatedAtDesc(Long userId, LocalDateTime now);
 
     @Transactional
     @Modifying
-    @Query("DELETE FROM OtpToken ot WHERE ot.expiryDate < :now")
-    void deleteAllExpiredSince(@Param("now") LocalDateTime now);
+    @Query("UPDATE OtpToken ot SET ot.used = true WHERE ot.user.id = :userId AND ot.used = false")
+    int invalidateOutstanding(@Param("userId") Long userId);
 
+    // Check and consume in one statement: 1 row only if the code matches and nobody used it first
     @Transactional
     @Modifying
-    @Query("UPDATE OtpToken ot SET ot.used = true WHERE ot.token = :token")
-    void markAsUsed(@Param("token") String token);
+    @Query("UPDATE OtpToken ot SET ot.used = true WHERE ot.id = :id AND ot.token = :token "
+            + "AND ot.used = false AND ot.expiryDate > :now")
+    int consumeIfMatches(@Param("id") Long id, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OtpToken ot SET ot.used = true WHERE ot.id = :id AND ot.used = false")
+    int markAsUsed(@Param("id") Long id);
+
+    // Compare-and-set on send_count, so only one of several concurrent requests re-sends the code
+    @Transactional
+    @Modifying
+    @Query("UPDATE OtpToken ot SET ot.sendCount = ot.sendCount + 1, ot.lastSentAt = :now "
+            + "WHERE ot.id = :id AND ot.used = false AND ot.sendCount = :sendCount")
+    int markResent(@Param("id") Long id, @Param("sendCount") int sendCount, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OtpToken ot WHERE ot.expiryDate < :now")
+    void deleteAllExpiredSince(@Param("now") LocalDateTime now);
 
     @Transactional
     @Modifying
@@ -0,0 +1,36 @@
+package com.legendaryUser.legendary.repository;
+
+import com.legendaryUser.legendary.model.RateLimitBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    // SELECT ... FOR UPDATE on the primary key: nodes leasing from the same bucket queue up on the row lock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM RateLimitBucket b WHERE b.bucketKey = :bucketKey")
+    Optional<RateLimitBucket> findForUpdate(@Param("bucketKey") String bucketKey);
+
+    // Returns unspent leased tokens without reading the row first; refill is capped when the row is next leased
+    @Transactional
+    @Modifying
+    @Query("UPDATE RateLimitBucket b SET b.milliTokens = CASE WHEN b.milliTokens + :milliTokens > :capacity "
+            + "THEN :capacity ELSE b.milliTokens + :milliTokens END WHERE b.bucketKey = :bucketKey")
+    int giveBack(@Param("bucketKey") String bucketKey, @Param("milliTokens") long milliTokens,
+                 @Param("capacity") long capacity);
+
+    // A bucket untouched for longer than its full refill time is equivalent to a missing (full) one
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RateLimitBucket b WHERE b.policy = :policy AND b.updatedAtMillis < :cutoff")
+    int deleteIdle(@Param("policy") String policy, @Param("cutoff") long cutoff);
+}
@@ -0,0 +1,24 @@
+package com.legendaryUser.legendary.repository;
+
+import com.legendaryUser.legendary.model.UserChangeLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserChangeLogRepository extends JpaRepository<UserChangeLog, Long> {
+
+    // Range scan on idx_user_change_log_created_at
+    List<UserChangeLog> findByCreatedAtAfterOrderByIdAsc(LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserChangeLog l WHERE l.createdAt < :cutoff")
+    int deleteAllCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,6 +1,7 @@
 package com.legendaryUser.legendary.repository;
 
 import com.legendaryUser.legendary.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +18,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail(String email);
 
+    // Only users whose tokens were ever invalidated; everyone else is still on version 0
+    @Query("SELECT u.id, u.securityVersion FROM User u WHERE u.securityVersion > 0")
+    List<Object[]> findRaisedSecurityVersions();
+
+    // One keyset page of (id, email) pairs after the given id, for walking the whole table
+    // without buffering it or holding a connection between pages
+    @Query("SELECT u.id, u.email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findEmailsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // Consumes a signed verification link: matches only the user's current nonce, and only once
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.enabled = true, u.verificationNonce = null, u.updatedAt = :updatedAt "
+            + "WHERE u.id = :id AND u.verificationNonce = :nonce AND u.enabled = false")
+    int markEmailVerified(@Param("id") Long id,
+                          @Param("nonce") String nonce,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+
     @Transactional
     @Modifying
     @Query("UPDATE User u SET u.failedAttempts = :failAttempts WHERE u.email = :email")
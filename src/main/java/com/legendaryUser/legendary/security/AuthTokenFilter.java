@@ -1,6 +1,8 @@
 package com.legendaryUser.legendary.security;
 
 import java.io.IOException;
+
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,49 +21,115 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
-    private JwtUtils jwtUtils;
+    private JwtVerifier jwtVerifier;
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private SecurityEventLogger securityEventLogger;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
+        String path = request.getRequestURI();
         try {
             String jwt = parseJwt(request);
-            System.out.println("JWT Token: " + jwt);
-
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            if (jwt == null) {
+                securityEventLogger.record(SecurityEventLogger.Category.TOKEN_MISSING, path);
+            } else {
+                UserDetails userDetails = authenticate(jwt, path);
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Authentication error: {}", e.getMessage());
+            securityEventLogger.record(SecurityEventLogger.Category.AUTH_ERROR, path, 0L, -1L, e.getClass().getSimpleName());
             // Don't block here - let Spring Security handle authorization
         }
 
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails authenticate(String jwt, String path) {
+        long fingerprint = VerifiedTokenCache.hash(jwt);
+
+        VerifiedTokenCache.CachedToken cached = verifiedTokenCache.get(jwt);
+        if (cached != null) {
+            UserPrincipal principal = cached.getPrincipal();
+            if (securityVersionRegistry.isCurrent(principal.getId(), principal.getSecurityVersion())
+                    && !tokenRevocationService.isRevoked(cached.getTokenId())) {
+                securityEventLogger.record(SecurityEventLogger.Category.TOKEN_CACHE_HIT, path, fingerprint, principal.getId(), null);
+                return principal;
+            }
+        }
+
+        JwtVerificationResult result = jwtVerifier.verify(jwt);
+        if (!result.isValid()) {
+            securityEventLogger.record(SecurityEventLogger.Category.TOKEN_REJECTED, path, fingerprint, -1L,
+                    result.getFailureReason().name());
+            return null;
+        }
+
+        String tokenId = result.getClaims().getId();
+        if (tokenRevocationService.isRevoked(tokenId)) {
+            securityEventLogger.record(SecurityEventLogger.Category.TOKEN_REVOKED, path, fingerprint, -1L, null);
+            return null;
+        }
+
+        UserDetails userDetails = resolvePrincipal(result);
+        if (userDetails == null) {
+            securityEventLogger.record(SecurityEventLogger.Category.TOKEN_STALE, path, fingerprint, -1L, null);
+            return null;
+        }
+
+        if (userDetails instanceof UserPrincipal principal) {
+            verifiedTokenCache.put(jwt, principal, result.getExpiration(), tokenId);
+            securityEventLogger.record(SecurityEventLogger.Category.TOKEN_ACCEPTED, path, fingerprint, principal.getId(), null);
+        }
+        return userDetails;
+    }
+
+    // Tokens carrying compact claims are trusted as-is; older tokens fall back to a user lookup
+    private UserDetails resolvePrincipal(JwtVerificationResult result) {
+        Claims claims = result.getClaims();
+        Number userId = claims.get(JwtUtils.CLAIM_USER_ID, Number.class);
+        String role = claims.get(JwtUtils.CLAIM_ROLE, String.class);
+        Number securityVersion = claims.get(JwtUtils.CLAIM_SECURITY_VERSION, Number.class);
+
+        if (userId == null || role == null || securityVersion == null) {
+            return userDetailsService.loadUserByUsername(result.getSubject());
+        }
+
+        if (!securityVersionRegistry.isCurrent(userId.longValue(), securityVersion.longValue())) {
+            return null;
+        }
+
+        return UserPrincipal.fromClaims(userId.longValue(), result.getSubject(), role, securityVersion.longValue());
+    }
 
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
-        System.out.println("Authorization Header: " + headerAuth);
         if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
-            String token = headerAuth.substring(7);
-            System.out.println("Extracted JWT: " + token); // Debug
-            return token;
+            return headerAuth.substring(7);
         }
-
-        System.out.println("No valid JWT found in header"); // Debug
         return null;
     }
 }
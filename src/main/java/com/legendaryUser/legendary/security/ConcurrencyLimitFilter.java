@@ -0,0 +1,157 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.util.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sheds load on the auth and user endpoints when the node is saturated, instead of letting
+ * Tomcat threads queue behind a slow database or mail server. Each request takes a slot of
+ * a GradientConcurrencyLimit for its whole duration; requests of lower priority may only use
+ * part of the limit, so they are refused first as it shrinks. A refused request gets a 503
+ * with Retry-After before any security, binding or database work is done.
+ *
+ * Latency is measured per priority, so slow requests are compared with their own kind rather
+ * than with fast authenticated reads; sheddable requests are not measured at all, so a
+ * registration flood queueing for bcrypt is shed by its share of the limit without shrinking
+ * the limit under the critical requests. When the limit does shrink, lower-priority requests
+ * still in flight beyond their new share don't count against higher-priority ones, so the
+ * critical requests aren't held out until a backlog of registrations drains. Refusals are counted in
+ * auth.concurrency.shed; the WARN is written at most once a second with the count since the last.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    /** Share of the limit a request class may occupy. */
+    enum Priority {
+        // Finishing a login and reading as an authenticated user
+        CRITICAL(1.0, true),
+        NORMAL(0.9, true),
+        // Work that can be retried later at no cost to an existing session. Its latency is
+        // mostly the password-hashing queue, which bounds itself, so it doesn't move the limit
+        SHEDDABLE(0.7, false);
+
+        final double share;
+        final boolean measured;
+
+        Priority(double share, boolean measured) {
+            this.share = share;
+            this.measured = measured;
+        }
+    }
+
+    private static final Map<String, Priority> POST_PRIORITIES = Map.of(
+            "/auth/verify-otp", Priority.CRITICAL,
+            "/auth/refresh", Priority.CRITICAL,
+            "/auth/register", Priority.SHEDDABLE,
+            "/auth/resend-verification", Priority.SHEDDABLE
+    );
+
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final GradientConcurrencyLimit limit;
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+    private final Map<Priority, AtomicInteger> inFlightByPriority = new EnumMap<>(Priority.class);
+    private final AtomicLong shedSinceWarning = new AtomicLong();
+    private final AtomicLong lastWarningNanos = new AtomicLong(System.nanoTime() - WARN_INTERVAL_NANOS);
+
+    public ConcurrencyLimitFilter(GradientConcurrencyLimit limit, MeterRegistry meterRegistry) {
+        this.limit = limit;
+        for (Priority priority : Priority.values()) {
+            shed.put(priority, Counter.builder("auth.concurrency.shed")
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .description("Requests refused because the adaptive concurrency limit was reached")
+                    .register(meterRegistry));
+            inFlightByPriority.put(priority, new AtomicInteger());
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request);
+        int inFlight = limit.tryAcquire(priority.share, overShare(priority));
+        if (inFlight < 0) {
+            shed.get(priority).increment();
+            warnShed(request, priority);
+
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"errorCode\":\"SERVICE_OVERLOADED\","
+                    + "\"message\":\"Server is busy. Please try again shortly.\","
+                    + "\"timestamp\":" + System.currentTimeMillis() + "}");
+            return;
+        }
+
+        AtomicInteger admitted = inFlightByPriority.get(priority);
+        admitted.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            admitted.decrementAndGet();
+            if (priority.measured) {
+                limit.release(System.nanoTime() - start, inFlight, priority.ordinal());
+            } else {
+                limit.releaseUnmeasured();
+            }
+        }
+    }
+
+    // Lower-priority requests in flight beyond the share the current limit allows them
+    private int overShare(Priority priority) {
+        int current = limit.getLimit();
+        int over = 0;
+        for (Priority lower : Priority.values()) {
+            if (lower.share < priority.share) {
+                over += Math.max(0, inFlightByPriority.get(lower).get() - (int) (current * lower.share));
+            }
+        }
+        return over;
+    }
+
+    private void warnShed(HttpServletRequest request, Priority priority) {
+        shedSinceWarning.incrementAndGet();
+        long now = System.nanoTime();
+        long last = lastWarningNanos.get();
+        if (now - last < WARN_INTERVAL_NANOS || !lastWarningNanos.compareAndSet(last, now)) {
+            return;
+        }
+        long count = shedSinceWarning.getAndSet(0);
+        logger.warn("Shedding {} {} ({} priority): {} in flight, limit {}; {} requests shed since the last report",
+                request.getMethod(), request.getServletPath(), priority, limit.getInFlight(), limit.getLimit(), count);
+    }
+
+    /** Latency classes the GradientConcurrencyLimit needs: one per priority. */
+    public static int latencyClasses() {
+        return Priority.values().length;
+    }
+
+    private static Priority priorityOf(HttpServletRequest request) {
+        String path = request.getPathInfo() == null
+                ? request.getServletPath() : request.getServletPath() + request.getPathInfo();
+        if ("GET".equals(request.getMethod())) {
+            return path.startsWith("/auth/") ? Priority.NORMAL : Priority.CRITICAL;
+        }
+        return POST_PRIORITIES.getOrDefault(path, Priority.NORMAL);
+    }
+}
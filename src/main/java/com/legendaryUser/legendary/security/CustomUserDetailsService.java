@@ -8,28 +8,51 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    PrincipalCache principalCache;
+
+    // UserPrincipal.create only reads basic columns, so a single repository call
+    // in its own read transaction is enough and no surrounding transaction is opened
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        UserPrincipal cached = principalCache.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = principalCache.generation();
+        long start = System.nanoTime();
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        principalCache.recordLoad(start);
 
-        return UserPrincipal.create(user);
+        return cache(user, generation);
     }
 
-    @Transactional
     public UserDetails loadUserById(Long id) {
+        UserPrincipal cached = principalCache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = principalCache.generation();
+        long start = System.nanoTime();
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
+        principalCache.recordLoad(start);
 
-        return UserPrincipal.create(user);
+        return cache(user, generation);
     }
-}
 
+    private UserPrincipal cache(User user, long generation) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        principalCache.put(principal, generation);
+        return principal;
+    }
+}
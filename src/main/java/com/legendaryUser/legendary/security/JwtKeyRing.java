@@ -0,0 +1,317 @@
+package com.legendaryUser.legendary.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legendaryUser.legendary.model.JwtSigningKey;
+import com.legendaryUser.legendary.repository.JwtSigningKeyRepository;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asymmetric (ES256) signing keys for JWTs, stored in jwt_signing_keys so every node
+ * signs with the same key and publishes the same JWKS.
+ *
+ * Rotation: a successor key is created publish-lead-ms before it starts signing, so
+ * downstream JWKS caches already know its kid. The previous key stops signing when the
+ * successor activates and stays published for overlap-ms, which must cover the access
+ * token lifetime. Private keys are stored encrypted (see PrivateKeyCipher). Inactive
+ * when app.jwt.algorithm is HS256.
+ */
+@Component
+public class JwtKeyRing {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    static final String ES256 = "ES256";
+    static final String HS256 = "HS256";
+
+    @Value("${app.jwt.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${app.jwt.key-rotation.interval-ms:604800000}")
+    private long rotationIntervalMs;
+
+    @Value("${app.jwt.key-rotation.publish-lead-ms:900000}")
+    private long publishLeadMs;
+
+    @Value("${app.jwt.key-rotation.overlap-ms:172800000}")
+    private long overlapMs;
+
+    @Value("${app.jwt.key-encryption-secret:}")
+    private String keyEncryptionSecret;
+
+    @Autowired
+    private JwtSigningKeyRepository keyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private PrivateKeyCipher keyCipher;
+
+    @PostConstruct
+    void init() {
+        if (!HS256.equalsIgnoreCase(algorithm) && !ES256.equalsIgnoreCase(algorithm)) {
+            throw new IllegalStateException("Unsupported app.jwt.algorithm: " + algorithm);
+        }
+        if (isAsymmetric()) {
+            keyCipher = new PrivateKeyCipher(keyEncryptionSecret);
+            rotateIfDue();
+            reload();
+        }
+    }
+
+    public boolean isAsymmetric() {
+        return ES256.equalsIgnoreCase(algorithm);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.key-rotation.check-interval-ms:60000}")
+    public void refresh() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        try {
+            rotateIfDue();
+            reload();
+        } catch (Exception e) {
+            logger.error("JWT key ring refresh failed: {}", e.getMessage());
+        }
+    }
+
+    public SigningKey currentSigningKey() {
+        SigningKey current = null;
+        long now = System.currentTimeMillis();
+        for (SigningKey key : snapshot.signingKeys) {
+            if (key.activatesAtMillis <= now) {
+                current = key;
+            }
+        }
+        if (current == null) {
+            throw new IllegalStateException("No active JWT signing key");
+        }
+        return current;
+    }
+
+    public PublicKey verificationKey(String kid) {
+        return kid != null ? snapshot.verificationKeys.get(kid) : null;
+    }
+
+    public String getJwksJson() {
+        return snapshot.jwksJson;
+    }
+
+    public String getJwksEtag() {
+        return snapshot.jwksEtag;
+    }
+
+    private void rotateIfDue() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<JwtSigningKey> keys = keyRepository.lockPublishedKeys(ES256, now);
+
+            JwtSigningKey current = null;
+            JwtSigningKey pending = null;
+            for (JwtSigningKey key : keys) {
+                if (key.getActivatesAt().isAfter(now)) {
+                    pending = key;
+                } else {
+                    current = key;
+                }
+            }
+
+            encryptLegacyKeys(keys);
+
+            if (current == null && pending == null) {
+                keyRepository.save(newKey(now, now));
+                logger.info("Created initial ES256 signing key");
+                return;
+            }
+
+            if (current != null) {
+                // Older keys that were never retired (e.g. two nodes bootstrapping at once)
+                for (JwtSigningKey key : keys) {
+                    if (key != current && key != pending && key.getRetiresAt() == null) {
+                        retire(key, current.getActivatesAt());
+                    }
+                }
+
+                LocalDateTime rotationDue = current.getActivatesAt()
+                        .plus(rotationIntervalMs, ChronoUnit.MILLIS)
+                        .minus(publishLeadMs, ChronoUnit.MILLIS);
+                if (pending == null && !now.isBefore(rotationDue)) {
+                    LocalDateTime activation = now.plus(publishLeadMs, ChronoUnit.MILLIS);
+                    JwtSigningKey successor = keyRepository.save(newKey(now, activation));
+                    retire(current, activation);
+                    logger.info("Scheduled JWT signing key {} to replace {} at {}",
+                            successor.getKid(), current.getKid(), activation);
+                }
+            }
+
+            keyRepository.deleteAllExpiredSince(now);
+        });
+    }
+
+    // Rows written before keys were encrypted at rest; runs under the same row locks as rotation
+    private void encryptLegacyKeys(List<JwtSigningKey> keys) {
+        for (JwtSigningKey key : keys) {
+            if (!PrivateKeyCipher.isEncrypted(key.getPrivateKey())) {
+                key.setPrivateKey(encryptPrivateKey(key.getKid(), Base64.getDecoder().decode(key.getPrivateKey())));
+                keyRepository.save(key);
+                logger.info("Encrypted stored JWT signing key {}", key.getKid());
+            }
+        }
+    }
+
+    private String encryptPrivateKey(String kid, byte[] pkcs8) {
+        try {
+            return keyCipher.encrypt(kid, pkcs8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encrypt JWT signing key " + kid, e);
+        }
+    }
+
+    private void retire(JwtSigningKey key, LocalDateTime at) {
+        key.setRetiresAt(at);
+        key.setExpiresAt(at.plus(overlapMs, ChronoUnit.MILLIS));
+        keyRepository.save(key);
+    }
+
+    private JwtSigningKey newKey(LocalDateTime now, LocalDateTime activatesAt) {
+        KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        byte[] kidBytes = new byte[12];
+        secureRandom.nextBytes(kidBytes);
+
+        JwtSigningKey key = new JwtSigningKey();
+        key.setKid(Base64.getUrlEncoder().withoutPadding().encodeToString(kidBytes));
+        key.setAlgorithm(ES256);
+        key.setPrivateKey(encryptPrivateKey(key.getKid(), keyPair.getPrivate().getEncoded()));
+        key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        key.setCreatedAt(now);
+        key.setActivatesAt(activatesAt);
+        return key;
+    }
+
+    private void reload() {
+        List<JwtSigningKey> keys = keyRepository.findPublishedKeys(ES256, LocalDateTime.now());
+        List<SigningKey> signingKeys = new ArrayList<>();
+        Map<String, PublicKey> verificationKeys = new HashMap<>();
+        List<Map<String, Object>> jwks = new ArrayList<>();
+
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            for (JwtSigningKey key : keys) {
+                PublicKey publicKey = keyFactory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey())));
+                verificationKeys.put(key.getKid(), publicKey);
+                jwks.add(toJwk(key.getKid(), (ECPublicKey) publicKey));
+
+                if (key.getRetiresAt() == null || key.getRetiresAt().isAfter(LocalDateTime.now())) {
+                    PrivateKey privateKey = keyFactory.generatePrivate(
+                            new PKCS8EncodedKeySpec(keyCipher.decrypt(key.getKid(), key.getPrivateKey())));
+                    long activatesAt = key.getActivatesAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    signingKeys.add(new SigningKey(key.getKid(), privateKey, activatesAt));
+                }
+            }
+
+            String json = objectMapper.writeValueAsString(Collections.singletonMap("keys", jwks));
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+
+            this.snapshot = new Snapshot(signingKeys, verificationKeys, json, etag);
+        } catch (GeneralSecurityException | JsonProcessingException e) {
+            throw new IllegalStateException("Failed to load JWT signing keys", e);
+        }
+    }
+
+    private static Map<String, Object> toJwk(String kid, ECPublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", ES256);
+        jwk.put("kid", kid);
+        jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        return jwk;
+    }
+
+    // JWK coordinates are fixed-length (32 bytes for P-256) unsigned big-endian values
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] out = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, out, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out);
+    }
+
+    public static final class SigningKey {
+        private final String kid;
+        private final PrivateKey privateKey;
+        private final long activatesAtMillis;
+
+        SigningKey(String kid, PrivateKey privateKey, long activatesAtMillis) {
+            this.kid = kid;
+            this.privateKey = privateKey;
+            this.activatesAtMillis = activatesAtMillis;
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Collections.emptyList(), Collections.emptyMap(),
+                "{\"keys\":[]}", "\"empty\"");
+
+        final List<SigningKey> signingKeys;
+        final Map<String, PublicKey> verificationKeys;
+        final String jwksJson;
+        final String jwksEtag;
+
+        Snapshot(List<SigningKey> signingKeys, Map<String, PublicKey> verificationKeys, String jwksJson, String jwksEtag) {
+            this.signingKeys = signingKeys;
+            this.verificationKeys = verificationKeys;
+            this.jwksJson = jwksJson;
+            this.jwksEtag = jwksEtag;
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package com.legendaryUser.legendary.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -23,50 +24,59 @@ public class JwtUtils {
     @Value("${app.jwt.expiration-ms}")
     private int jwtExpirationMs;
 
+    // Embed id, role and security version so the filter can skip the user lookup
+    @Value("${app.jwt.compact-claims:true}")
+    private boolean compactClaims;
+
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_SECURITY_VERSION = "sv";
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @Autowired
+    private TokenGenerator tokenGenerator;
+
+    // Derived once; building the HMAC key per call was showing up on every request
+    private SecretKey signingKey;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    }
+
     public String generateJwtToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
-        return Jwts.builder()
+        Date now = new Date();
+        JwtBuilder builder = Jwts.builder()
+                .setId(tokenGenerator.urlSafeToken(16))
                 .setSubject((userPrincipal.getEmail()))
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey()//, SignatureAlgorithm.HS256
-                        )
-                .compact();
-    }
-    public String getUserNameFromJwtToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + jwtExpirationMs));
+
+        if (compactClaims) {
+            builder.claim(CLAIM_USER_ID, userPrincipal.getId())
+                    .claim(CLAIM_ROLE, userPrincipal.getRole())
+                    .claim(CLAIM_SECURITY_VERSION, userPrincipal.getSecurityVersion());
+        }
 
-    public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException e) {
-            logger.error("Invalid JWT signature: {}", e.getMessage());
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+        if (keyRing.isAsymmetric()) {
+            JwtKeyRing.SigningKey key = keyRing.currentSigningKey();
+            return builder
+                    .setHeaderParam(JwsHeader.KEY_ID, key.getKid())
+                    .signWith(key.getPrivateKey(), SignatureAlgorithm.ES256)
+                    .compact();
         }
 
-        return false;
+        return builder
+                .signWith(signingKey//, SignatureAlgorithm.HS256
+                        )
+                .compact();
     }
 
-    private SecretKey getSigningKey() {
-        //byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    SecretKey getSigningKey() {
+        return signingKey;
     }
 }
-
@@ -0,0 +1,63 @@
+package com.legendaryUser.legendary.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * Outcome of a single parse of a JWT by {@link JwtVerifier}.
+ * Either carries the verified claims or the reason verification failed.
+ */
+public final class JwtVerificationResult {
+
+    public enum FailureReason {
+        NONE,
+        EMPTY,
+        MALFORMED,
+        INVALID_SIGNATURE,
+        EXPIRED,
+        UNSUPPORTED,
+        INVALID
+    }
+
+    private static final JwtVerificationResult EMPTY = new JwtVerificationResult(null, FailureReason.EMPTY);
+
+    private final Claims claims;
+    private final FailureReason failureReason;
+
+    private JwtVerificationResult(Claims claims, FailureReason failureReason) {
+        this.claims = claims;
+        this.failureReason = failureReason;
+    }
+
+    public static JwtVerificationResult success(Claims claims) {
+        return new JwtVerificationResult(claims, FailureReason.NONE);
+    }
+
+    public static JwtVerificationResult failure(FailureReason reason) {
+        if (reason == FailureReason.EMPTY) {
+            return EMPTY;
+        }
+        return new JwtVerificationResult(null, reason);
+    }
+
+    public boolean isValid() {
+        return failureReason == FailureReason.NONE;
+    }
+
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public String getSubject() {
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public Date getExpiration() {
+        return claims != null ? claims.getExpiration() : null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.legendaryUser.legendary.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.Key;
+
+/**
+ * Verifies a JWT with a single parse. The parser and signing key are built once
+ * at startup and shared by all request threads (JwtParser is immutable and thread-safe).
+ */
+@Component
+public class JwtVerifier {
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        if (!keyRing.isAsymmetric()) {
+            this.parser = Jwts.parserBuilder()
+                    .setSigningKey(jwtUtils.getSigningKey())
+                    .build();
+            return;
+        }
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        // HS256 tokens issued before switching to ES256 stay valid until they expire
+                        if (JwtKeyRing.HS256.equals(header.getAlgorithm())) {
+                            return jwtUtils.getSigningKey();
+                        }
+                        Key key = keyRing.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown JWT key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    public JwtVerificationResult verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return JwtVerificationResult.failure(JwtVerificationResult.FailureReason.EMPTY);
+        }
+
+        try {
+            return JwtVerificationResult.success(parser.parseClaimsJws(token).getBody());
+        } catch (ExpiredJwtException e) {
+            logger.debug("JWT token is expired: {}", e.getMessage());
+            return JwtVerificationResult.failure(JwtVerificationResult.FailureReason.EXPIRED);
+        } catch (SecurityException e) {
+            logger.warn("Invalid JWT signature: {}", e.getMessage());
+            return JwtVerificationResult.failure(JwtVerificationResult.FailureReason.INVALID_SIGNATURE);
+        } catch (MalformedJwtException e) {
+            logger.warn("Invalid JWT token: {}", e.getMessage());
+            return JwtVerificationResult.failure(JwtVerificationResult.FailureReason.MALFORMED);
+        } catch (UnsupportedJwtException e) {
+            logger.warn("JWT token is unsupported: {}", e.getMessage());
+            return JwtVerificationResult.failure(JwtVerificationResult.FailureReason.UNSUPPORTED);
+        } catch (JwtException e) {
+            logger.warn("JWT token rejected: {}", e.getMessage());
+            return JwtVerificationResult.failure(JwtVerificationResult.FailureReason.INVALID);
+        } catch (IllegalArgumentException e) {
+            logger.warn("JWT claims string is empty: {}", e.getMessage());
+            return JwtVerificationResult.failure(JwtVerificationResult.FailureReason.EMPTY);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.legendaryUser.legendary.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the {id}-prefixed DelegatingPasswordEncoder used for User.password. New hashes
+ * use the configured encoder; every id stays readable, and hashes stored before prefixes
+ * were introduced are plain BCrypt and matched by the default encoder.
+ */
+@Component
+public class PasswordEncoderFactory {
+    static final String BCRYPT = "bcrypt";
+    static final String ARGON2 = "argon2";
+    static final String PBKDF2 = "pbkdf2";
+
+    @Value("${app.security.password-hashing.encoder:bcrypt}")
+    private String encoderId;
+
+    @Value("${app.security.password-hashing.bcrypt.strength:12}")
+    private int bcryptStrength;
+
+    @Value("${app.security.password-hashing.argon2.memory-kb:19456}")
+    private int argon2MemoryKb;
+
+    @Value("${app.security.password-hashing.argon2.iterations:2}")
+    private int argon2Iterations;
+
+    @Value("${app.security.password-hashing.argon2.parallelism:1}")
+    private int argon2Parallelism;
+
+    @Value("${app.security.password-hashing.pbkdf2.iterations:310000}")
+    private int pbkdf2Iterations;
+
+    public PasswordEncoder createDelegating() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt(bcryptStrength));
+        encoders.put(ARGON2, argon2(argon2MemoryKb, argon2Iterations, argon2Parallelism));
+        encoders.put(PBKDF2, pbkdf2(pbkdf2Iterations));
+
+        if (!encoders.containsKey(encoderId)) {
+            throw new IllegalStateException("Unknown password encoder: " + encoderId);
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encoderId, encoders);
+        // Legacy rows hold a bare "$2a$12$..." hash with no {id} prefix
+        delegating.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+        return delegating;
+    }
+
+    public String getEncoderId() {
+        return encoderId;
+    }
+
+    static PasswordEncoder bcrypt(int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    static PasswordEncoder argon2(int memoryKb, int iterations, int parallelism) {
+        // Argon2id with a 16 byte salt and 32 byte hash
+        return new Argon2PasswordEncoder(16, 32, parallelism, memoryKb, iterations);
+    }
+
+    static PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+}
@@ -0,0 +1,138 @@
+package com.legendaryUser.legendary.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks candidate password encoders on this machine against a latency budget and
+ * logs the strongest setting of each family that fits. Run it once per node size with
+ *
+ *   java -jar legendary.jar --calibrate-password-hashing
+ *
+ * which exits after printing the results, or set
+ * app.security.password-hashing.calibrate-on-startup to log them on every start.
+ */
+@Component
+public class PasswordHashCalibrator implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashCalibrator.class);
+
+    private static final String CLI_OPTION = "calibrate-password-hashing";
+    private static final String SAMPLE_PASSWORD = "Calibration-Passw0rd!";
+
+    @Value("${app.security.password-hashing.calibrate-on-startup:false}")
+    private boolean calibrateOnStartup;
+
+    @Value("${app.security.password-hashing.target-ms:250}")
+    private long targetMs;
+
+    @Value("${app.security.password-hashing.calibration-samples:5}")
+    private int samples;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean fromCli = args.containsOption(CLI_OPTION);
+        if (!fromCli && !calibrateOnStartup) {
+            return;
+        }
+
+        calibrate();
+
+        if (fromCli) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    public void calibrate() {
+        logger.info("Calibrating password encoders: target={} ms, samples={}, cpus={}",
+                targetMs, samples, Runtime.getRuntime().availableProcessors());
+
+        Map<String, List<Candidate>> families = new LinkedHashMap<>();
+        families.put(PasswordEncoderFactory.BCRYPT, new ArrayList<>());
+        for (int strength = 10; strength <= 14; strength++) {
+            families.get(PasswordEncoderFactory.BCRYPT).add(new Candidate(
+                    "bcrypt.strength=" + strength, PasswordEncoderFactory.bcrypt(strength)));
+        }
+
+        families.put(PasswordEncoderFactory.ARGON2, new ArrayList<>());
+        for (int memoryKb : new int[]{19456, 47104, 65536}) {
+            for (int iterations = 1; iterations <= 3; iterations++) {
+                families.get(PasswordEncoderFactory.ARGON2).add(new Candidate(
+                        "argon2.memory-kb=" + memoryKb + ",iterations=" + iterations,
+                        PasswordEncoderFactory.argon2(memoryKb, iterations, 1)));
+            }
+        }
+
+        families.put(PasswordEncoderFactory.PBKDF2, new ArrayList<>());
+        for (int iterations : new int[]{310000, 600000, 1000000}) {
+            families.get(PasswordEncoderFactory.PBKDF2).add(new Candidate(
+                    "pbkdf2.iterations=" + iterations, PasswordEncoderFactory.pbkdf2(iterations)));
+        }
+
+        for (Map.Entry<String, List<Candidate>> family : families.entrySet()) {
+            Candidate best = null;
+            for (Candidate candidate : family.getValue()) {
+                try {
+                    candidate.medianMs = measure(candidate.encoder);
+                } catch (RuntimeException | LinkageError e) {
+                    logger.warn("  {} unavailable: {}", candidate.name, e.getMessage());
+                    continue;
+                }
+                boolean fits = candidate.medianMs <= targetMs;
+                logger.info("  {} -> {} ms{}", candidate.name, String.format("%.1f", candidate.medianMs),
+                        fits ? "" : " (over budget)");
+                // Candidates are listed from cheapest to most expensive within a family
+                if (fits && (best == null || candidate.medianMs >= best.medianMs)) {
+                    best = candidate;
+                }
+            }
+            if (best != null) {
+                logger.info("Recommended {}: {} ({} ms)", family.getKey(), best.name, String.format("%.1f", best.medianMs));
+            } else {
+                logger.warn("No {} setting fits within {} ms", family.getKey(), targetMs);
+            }
+        }
+    }
+
+    private double measure(PasswordEncoder encoder) {
+        // One warm-up round so class loading and JIT don't count
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        encoder.matches(SAMPLE_PASSWORD, hash);
+
+        double[] timings = new double[Math.max(1, samples)];
+        for (int i = 0; i < timings.length; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            timings[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(timings);
+        return timings[timings.length / 2];
+    }
+
+    private static final class Candidate {
+        final String name;
+        final PasswordEncoder encoder;
+        double medianMs;
+
+        Candidate(String name, PasswordEncoder encoder) {
+            this.name = name;
+            this.encoder = encoder;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.event.UserSecurityChangedEvent;
+import com.legendaryUser.legendary.util.ExpiringLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size- and TTL-bounded cache of UserPrincipals in front of CustomUserDetailsService.
+ * Entries are evicted as soon as a UserSecurityChangedEvent commits; the TTL is only
+ * a backstop for changes made outside AuthService.
+ *
+ * A miss reads the user outside any lock, so an eviction can land between that read and
+ * the fill that follows it. Every eviction bumps a generation; loaders take the generation
+ * before reading and put() drops the fill if it has moved, so a principal read before a
+ * change is never cached after the change was evicted.
+ */
+@Component
+public class PrincipalCache {
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    @Value("${app.security.principal-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.principal-cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${app.security.principal-cache.ttl-ms:600000}")
+    private long ttlMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExpiringLruCache<String, UserPrincipal> byEmail;
+    private ExpiringLruCache<Long, UserPrincipal> byId;
+    private Timer loadTimer;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        loadTimer = Timer.builder("auth.principal.load")
+                .description("Time to load a principal from the database on a cache miss")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+
+        int concurrency = Runtime.getRuntime().availableProcessors() * 4;
+        byEmail = new ExpiringLruCache<>(maxEntries, concurrency);
+        byId = new ExpiringLruCache<>(maxEntries, concurrency);
+
+        FunctionCounter.builder("auth.principal.cache.hits", this, PrincipalCache::hitCount).register(meterRegistry);
+        FunctionCounter.builder("auth.principal.cache.misses", this, PrincipalCache::missCount).register(meterRegistry);
+        FunctionCounter.builder("auth.principal.cache.evictions", this,
+                c -> c.byEmail.evictionCount() + c.byId.evictionCount()).register(meterRegistry);
+        Gauge.builder("auth.principal.cache.hit_ratio", this, PrincipalCache::hitRatio).register(meterRegistry);
+        Gauge.builder("auth.principal.cache.size", byEmail, ExpiringLruCache::size).register(meterRegistry);
+
+        logger.info("Principal cache enabled: maxEntries={}, ttlMs={}", maxEntries, ttlMs);
+    }
+
+    public UserPrincipal getByEmail(String email) {
+        return byEmail != null ? byEmail.get(email, System.currentTimeMillis()) : null;
+    }
+
+    public UserPrincipal getById(Long id) {
+        return byId != null ? byId.get(id, System.currentTimeMillis()) : null;
+    }
+
+    /** Taken before reading the user from the database, and handed back to put(). */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(UserPrincipal principal, long loadedAtGeneration) {
+        if (byEmail == null || generation.get() != loadedAtGeneration) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        byEmail.put(principal.getEmail(), principal, expiresAt);
+        byId.put(principal.getId(), principal, expiresAt);
+
+        // An eviction that ran between the check above and these puts has already removed
+        // whatever it was going to remove, so undo the fill ourselves
+        if (generation.get() != loadedAtGeneration) {
+            byEmail.remove(principal.getEmail());
+            byId.remove(principal.getId());
+        }
+    }
+
+    public void recordLoad(long startNanos) {
+        loadTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void evict(Long userId, String email) {
+        if (byEmail == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (email != null) {
+            byEmail.remove(email);
+        }
+        if (userId != null) {
+            byId.remove(userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        evict(event.getUserId(), event.getEmail());
+    }
+
+    private double hitCount() {
+        return byEmail.hitCount() + byId.hitCount();
+    }
+
+    private double missCount() {
+        return byEmail.missCount() + byId.missCount();
+    }
+
+    private double hitRatio() {
+        double hits = hitCount();
+        double total = hits + missCount();
+        return total == 0 ? 0 : hits / total;
+    }
+}
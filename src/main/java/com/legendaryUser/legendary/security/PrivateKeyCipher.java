@@ -0,0 +1,74 @@
+package com.legendaryUser.legendary.security;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts signing keys for storage in jwt_signing_keys, so read access to the database
+ * is not enough to forge tokens. AES-256-GCM under a key derived from
+ * app.jwt.key-encryption-secret, with the kid as associated data so an encrypted key
+ * can't be moved to another row. Stored as "v1:" + base64(iv || ciphertext || tag).
+ */
+final class PrivateKeyCipher {
+
+    private static final String PREFIX = "v1:";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    PrivateKeyCipher(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("app.jwt.key-encryption-secret must be set to store ES256 keys");
+        }
+        try {
+            Mac derive = Mac.getInstance("HmacSHA256");
+            derive.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            this.key = new SecretKeySpec(derive.doFinal("jwt-signing-key-encryption".getBytes(StandardCharsets.UTF_8)), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive the key encryption key", e);
+        }
+    }
+
+    String encrypt(String kid, byte[] plaintext) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_BYTES];
+        secureRandom.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        byte[] sealed = cipher.doFinal(plaintext);
+
+        return PREFIX + Base64.getEncoder().encodeToString(
+                ByteBuffer.allocate(IV_BYTES + sealed.length).put(iv).put(sealed).array());
+    }
+
+    /**
+     * @throws GeneralSecurityException if the value was not encrypted under this secret for
+     *         this kid, or was tampered with
+     */
+    byte[] decrypt(String kid, String stored) throws GeneralSecurityException {
+        if (!isEncrypted(stored)) {
+            throw new GeneralSecurityException("Signing key " + kid + " is not encrypted");
+        }
+        byte[] data = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        if (data.length <= IV_BYTES) {
+            throw new GeneralSecurityException("Signing key " + kid + " is truncated");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_BYTES));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES);
+    }
+
+    static boolean isEncrypted(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+}
@@ -0,0 +1,91 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.service.HeavyHitterDetector;
+import com.legendaryUser.legendary.service.RateLimitEndpoint;
+import com.legendaryUser.legendary.service.RateLimiter;
+import com.legendaryUser.legendary.util.ClientIpResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits the expensive auth endpoints before anything else runs: no security chain,
+ * no Jackson binding, no bean validation and no database access happen for a rejected
+ * request. Registered ahead of the Spring Security filter chain by RateLimitFilterConfig.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    // Path without the context path
+    private static final Map<String, RateLimitEndpoint> LIMITED_PATHS = Map.of(
+            "/auth/register", RateLimitEndpoint.REGISTER,
+            "/auth/request-otp", RateLimitEndpoint.REQUEST_OTP,
+            "/auth/resend-verification", RateLimitEndpoint.RESEND_VERIFICATION
+    );
+
+    // Refused outright while the client's subnet is blocked by HeavyHitterDetector
+    private static final Set<String> BLOCKABLE_PATHS = Set.of(
+            "/auth/register",
+            "/auth/request-otp",
+            "/auth/resend-verification",
+            "/auth/verify-otp"
+    );
+
+    private final RateLimiter rateLimiter;
+    private final HeavyHitterDetector heavyHitterDetector;
+
+    public RateLimitFilter(RateLimiter rateLimiter, HeavyHitterDetector heavyHitterDetector) {
+        this.rateLimiter = rateLimiter;
+        this.heavyHitterDetector = heavyHitterDetector;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !BLOCKABLE_PATHS.contains(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientIp = ClientIpResolver.resolve(request);
+        long nanosToWait = heavyHitterDetector.subnetBlockedNanos(clientIp);
+        RateLimitEndpoint endpoint = LIMITED_PATHS.get(pathOf(request));
+        if (nanosToWait == 0 && endpoint != null) {
+            nanosToWait = rateLimiter.tryConsume(endpoint, clientIp, null);
+        }
+
+        if (nanosToWait == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanosToWait + 999_999_999L));
+        logger.warn("Rate limit exceeded for IP {} on {}", clientIp, pathOf(request));
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"success\":false,\"errorCode\":\"RATE_LIMIT_EXCEEDED\","
+                + "\"message\":\"Too many requests. Please try again later.\","
+                + "\"retryAfter\":" + retryAfterSeconds
+                + ",\"timestamp\":" + System.currentTimeMillis() + "}");
+    }
+
+    // Decoded and normalised by the container, so encoded or ";param" variants can't slip past
+    private static String pathOf(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        return pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo;
+    }
+}
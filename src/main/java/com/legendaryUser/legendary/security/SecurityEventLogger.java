@@ -0,0 +1,232 @@
+package com.legendaryUser.legendary.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Security event pipeline for the authentication hot path.
+ *
+ * Request threads claim a slot in a fixed ring of preallocated events with a CAS on the
+ * cursor, fill it in place and publish it; they never block and never allocate. A single
+ * background writer drains published slots and hands them to the "security-events" logger
+ * in batches, which ends up in the regular logs/auth-app.log rolling file. When the writer
+ * falls behind the ring is full and new events are dropped and counted rather than queued.
+ *
+ * Raw tokens are never recorded, only a 64-bit fingerprint of them.
+ */
+@Component
+public class SecurityEventLogger {
+    private static final Logger logger = LoggerFactory.getLogger(SecurityEventLogger.class);
+    private static final Logger eventLog = LoggerFactory.getLogger("security-events");
+
+    public enum Category {
+        TOKEN_MISSING,
+        TOKEN_ACCEPTED,
+        TOKEN_CACHE_HIT,
+        TOKEN_REJECTED,
+        TOKEN_REVOKED,
+        TOKEN_STALE,
+        AUTH_ERROR
+    }
+
+    private static final long NO_USER = -1L;
+
+    @Value("${app.security.event-log.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${app.security.event-log.batch-size:256}")
+    private int batchSize;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Event[] slots;
+    private AtomicLongArray published;
+    private int mask;
+
+    private final AtomicLong cursor = new AtomicLong();
+    private volatile long consumed;
+
+    // 0 disables a category, 1 records everything, N records roughly one in N
+    private final int[] sampleEvery = new int[Category.values().length];
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    // Only touched by the writer thread
+    private final StringBuilder batch = new StringBuilder(16 * 1024);
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @PostConstruct
+    void start() {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        slots = new Event[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Event();
+        }
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1L);
+        }
+        mask = capacity - 1;
+
+        for (Category category : Category.values()) {
+            String key = "app.security.event-log.sampling." + category.name().toLowerCase().replace('_', '-');
+            sampleEvery[category.ordinal()] = environment.getProperty(key, Integer.class, defaultSampling(category));
+        }
+
+        FunctionCounter.builder("auth.security_events.dropped", dropped, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("auth.security_events.written", written, LongAdder::sum).register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::drainLoop, "security-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Security event log started: capacity={}, batchSize={}", capacity, batchSize);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(2));
+        if (writer.isAlive()) {
+            // drain() is single-consumer; running it alongside a stuck writer would corrupt the batch
+            logger.warn("Security event writer did not stop; {} events not written", cursor.get() - consumed);
+            return;
+        }
+        while (drain() > 0) {
+            // Flush whatever was published before shutdown, one batch at a time
+        }
+    }
+
+    public void record(Category category, String path, long tokenFingerprint, long userId, String detail) {
+        int every = sampleEvery[category.ordinal()];
+        if (every == 0 || (every > 1 && ThreadLocalRandom.current().nextInt(every) != 0)) {
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = cursor.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!cursor.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        Event event = slots[index];
+        event.timestampMillis = System.currentTimeMillis();
+        event.category = category;
+        event.path = path;
+        event.tokenFingerprint = tokenFingerprint;
+        event.userId = userId;
+        event.detail = detail;
+        published.setRelease(index, sequence);
+    }
+
+    public void record(Category category, String path) {
+        record(category, path, 0L, NO_USER, null);
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            }
+        }
+    }
+
+    private int drain() {
+        int count = 0;
+        long next = consumed;
+        batch.setLength(0);
+
+        while (count < batchSize) {
+            int index = (int) (next & mask);
+            if (published.getAcquire(index) != next) {
+                break;
+            }
+            append(slots[index]);
+            slots[index].path = null;
+            slots[index].detail = null;
+            next++;
+            count++;
+            // Free the slot for producers as soon as it has been copied out
+            consumed = next;
+        }
+
+        if (count > 0) {
+            eventLog.info(batch.toString());
+            written.add(count);
+        }
+        return count;
+    }
+
+    private void append(Event event) {
+        if (batch.length() > 0) {
+            batch.append('\n');
+        }
+        batch.append(Instant.ofEpochMilli(event.timestampMillis))
+                .append(' ').append(event.category)
+                .append(" path=").append(event.path);
+        if (event.tokenFingerprint != 0L) {
+            batch.append(" token=");
+            appendHex(event.tokenFingerprint);
+        }
+        if (event.userId != NO_USER) {
+            batch.append(" user=").append(event.userId);
+        }
+        if (event.detail != null) {
+            batch.append(" detail=").append(event.detail);
+        }
+    }
+
+    private void appendHex(long value) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            batch.append(Character.forDigit((int) (value >>> shift) & 0xf, 16));
+        }
+    }
+
+    private static int defaultSampling(Category category) {
+        switch (category) {
+            case TOKEN_MISSING:
+                return 0;
+            case TOKEN_ACCEPTED:
+            case TOKEN_CACHE_HIT:
+                return 100;
+            default:
+                return 1;
+        }
+    }
+
+    private static final class Event {
+        long timestampMillis;
+        Category category;
+        String path;
+        long tokenFingerprint;
+        long userId;
+        String detail;
+    }
+}
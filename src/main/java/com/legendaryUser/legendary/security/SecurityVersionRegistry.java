@@ -0,0 +1,54 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.event.UserSecurityChangedEvent;
+import com.legendaryUser.legendary.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the minimum security version a user's JWT must carry.
+ * Users that were never promoted, demoted or locked have no entry and every
+ * token version is accepted for them, so the map only holds the (small) set
+ * of users whose tokens have been invalidated at least once.
+ */
+@Component
+public class SecurityVersionRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(SecurityVersionRegistry.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<Long, Long> minimumVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        for (Object[] row : userRepository.findRaisedSecurityVersions()) {
+            advance(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        logger.info("Loaded security versions for {} users", minimumVersions.size());
+    }
+
+    public void advance(Long userId, long version) {
+        minimumVersions.merge(userId, version, Math::max);
+    }
+
+    // Only moves once the version bump is committed, so a rolled back change never locks tokens out
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        if (event.getReason().invalidatesTokens()) {
+            advance(event.getUserId(), event.getSecurityVersion());
+        }
+    }
+
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        Long minimum = minimumVersions.get(userId);
+        return minimum == null || tokenVersion >= minimum;
+    }
+}
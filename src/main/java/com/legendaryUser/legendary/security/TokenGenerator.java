@@ -0,0 +1,114 @@
+package com.legendaryUser.legendary.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Random OTPs and opaque tokens (verification tokens, refresh tokens, JWT ids).
+ *
+ * Each thread has its own SecureRandom and draws from it a buffer at a time, so
+ * concurrent logins neither share a generator lock nor pay a generator call per token.
+ * The default DRBG instances are independent of each other; a NativePRNG instance would
+ * still funnel every thread through one shared /dev/urandom reader. Digits come from
+ * random bytes below 250 taken mod 10, so every digit is equally likely; tokens are
+ * base64url without padding, written straight into the result's char array.
+ */
+@Component
+public class TokenGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(TokenGenerator.class);
+
+    private static final char[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    // Largest multiple of 10 that fits in a byte; bytes at or above it are redrawn
+    private static final int DIGIT_BOUND = 250;
+
+    @Value("${app.security.tokens.algorithm:DRBG}")
+    private String algorithm;
+
+    @Value("${app.security.tokens.buffer-bytes:256}")
+    private int bufferBytes;
+
+    private ThreadLocal<Source> sources;
+
+    @PostConstruct
+    void init() {
+        newSecureRandom(); // fail at startup on an unknown algorithm, not on the first login
+        sources = ThreadLocal.withInitial(() -> new Source(newSecureRandom(), bufferBytes));
+        logger.info("Token generator: per-thread {} with {} byte buffers", algorithm, bufferBytes);
+    }
+
+    /** A code of the given number of decimal digits, each uniformly distributed. */
+    public String numericCode(int digits) {
+        Source source = sources.get();
+        char[] chars = new char[digits];
+        for (int i = 0; i < digits; ) {
+            int b = source.nextByte();
+            if (b < DIGIT_BOUND) {
+                chars[i++] = (char) ('0' + b % 10);
+            }
+        }
+        return new String(chars);
+    }
+
+    /** randomBytes random bytes as unpadded base64url: 32 bytes give a 43-character token. */
+    public String urlSafeToken(int randomBytes) {
+        Source source = sources.get();
+        char[] chars = new char[(randomBytes * 8 + 5) / 6];
+        int out = 0;
+        int remaining = randomBytes;
+        while (remaining >= 3) {
+            int bits = source.nextByte() << 16 | source.nextByte() << 8 | source.nextByte();
+            chars[out++] = BASE64URL[bits >>> 18];
+            chars[out++] = BASE64URL[bits >>> 12 & 0x3F];
+            chars[out++] = BASE64URL[bits >>> 6 & 0x3F];
+            chars[out++] = BASE64URL[bits & 0x3F];
+            remaining -= 3;
+        }
+        if (remaining == 2) {
+            int bits = source.nextByte() << 8 | source.nextByte();
+            chars[out++] = BASE64URL[bits >>> 10];
+            chars[out++] = BASE64URL[bits >>> 4 & 0x3F];
+            chars[out] = BASE64URL[bits << 2 & 0x3F];
+        } else if (remaining == 1) {
+            int bits = source.nextByte();
+            chars[out++] = BASE64URL[bits >>> 2];
+            chars[out] = BASE64URL[bits << 4 & 0x3F];
+        }
+        return new String(chars);
+    }
+
+    private SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SecureRandom algorithm " + algorithm + " is not available", e);
+        }
+    }
+
+    /** One thread's generator and its unread bytes. */
+    private static final class Source {
+        private final SecureRandom random;
+        private final byte[] buffer;
+        private int position;
+
+        Source(SecureRandom random, int size) {
+            this.random = random;
+            this.buffer = new byte[Math.max(16, size)];
+            this.position = buffer.length;
+        }
+
+        int nextByte() {
+            if (position == buffer.length) {
+                random.nextBytes(buffer);
+                position = 0;
+            }
+            return buffer[position++] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.model.RevokedToken;
+import com.legendaryUser.legendary.repository.RevokedTokenRepository;
+import com.legendaryUser.legendary.util.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of revoked JWT ids (jti). The request path only consults a Bloom filter,
+ * which answers "not revoked" for almost every token without touching the exact set;
+ * the exact set is backed by revoked_tokens, reloaded at startup and polled for
+ * revocations made on other nodes.
+ *
+ * The poll re-reads every row revoked within lookback-ms rather than following the id:
+ * IDENTITY ids are handed out before commit, so a lower id can become visible after a
+ * higher one and would be skipped for good by an id cursor. The lookback must cover the
+ * sync interval, the longest revoking transaction and clock skew between nodes; rows
+ * already known are skipped by jti.
+ */
+@Component
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Value("${app.jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${app.jwt.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${app.jwt.revocation.lookback-ms:120000}")
+    private long lookbackMs;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // jti -> expiry (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    @PostConstruct
+    void load() {
+        filter = newFilter(0);
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            remember(token);
+        }
+
+        Gauge.builder("auth.jwt.revocation.entries", revoked, Map::size).register(meterRegistry);
+        Gauge.builder("auth.jwt.revocation.filter.bytes", this, s -> s.filter.sizeInBytes()).register(meterRegistry);
+        logger.info("Loaded {} revoked tokens", revoked.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return revoked.containsKey(jti);
+    }
+
+    public void revoke(String jti, Long userId, Date expiresAt) {
+        if (revoked.containsKey(jti)) {
+            return;
+        }
+
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        try {
+            revokedTokenRepository.save(new RevokedToken(jti, userId, expiry));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Token {} was already revoked", jti);
+        }
+        remember(jti, expiresAt.getTime());
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval-ms:30000}")
+    public void synchronize() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (RevokedToken token : revokedTokenRepository
+                    .findByRevokedAtAfterAndExpiresAtAfter(now.minus(lookbackMs, ChronoUnit.MILLIS), now)) {
+                if (!revoked.containsKey(token.getJti())) {
+                    remember(token);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Revoked token sync failed: {}", e.getMessage());
+        }
+    }
+
+    // Expired entries can never match a valid token again, so drop them and rebuild the filter
+    @Scheduled(fixedRateString = "${app.jwt.revocation.prune-interval-ms:3600000}")
+    public void prune() {
+        long now = Instant.now().toEpochMilli();
+        revoked.entrySet().removeIf(entry -> entry.getValue() <= now);
+        revokedTokenRepository.deleteAllExpiredSince(LocalDateTime.now());
+        rebuild();
+    }
+
+    private void remember(RevokedToken token) {
+        remember(token.getJti(), token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private synchronized void remember(String jti, long expiresAtMillis) {
+        revoked.put(jti, expiresAtMillis);
+        filter.put(jti);
+    }
+
+    private synchronized void rebuild() {
+        BloomFilter rebuilt = newFilter(revoked.size());
+        for (String jti : revoked.keySet()) {
+            rebuilt.put(jti);
+        }
+        filter = rebuilt;
+    }
+
+    private BloomFilter newFilter(int entries) {
+        return new BloomFilter(Math.max(expectedEntries, entries * 2L), falsePositiveRate);
+    }
+}
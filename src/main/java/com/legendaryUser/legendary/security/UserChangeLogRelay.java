@@ -0,0 +1,129 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.event.UserSecurityChangedEvent;
+import com.legendaryUser.legendary.model.UserChangeLog;
+import com.legendaryUser.legendary.repository.UserChangeLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Broker-less invalidation bus between nodes sharing the database.
+ *
+ * Every local UserSecurityChangedEvent is appended to user_change_log inside the
+ * transaction that made the change, so a rolled back change is never broadcast. Each
+ * node polls the recent tail of the log and republishes rows written by other nodes
+ * as remote events, which the local caches evict on exactly like local ones.
+ *
+ * IDENTITY ids can commit out of order, so the poll reads a short created_at window
+ * instead of "id greater than the last seen" and remembers which rows it already
+ * replayed. Replaying twice would be harmless anyway: every listener is idempotent.
+ */
+@Component
+public class UserChangeLogRelay {
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeLogRelay.class);
+
+    @Value("${app.cluster.node-id:}")
+    private String nodeId;
+
+    @Value("${app.cluster.change-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cluster.change-log.lookback-ms:10000}")
+    private long lookbackMs;
+
+    @Value("${app.cluster.change-log.retention-ms:3600000}")
+    private long retentionMs;
+
+    @Autowired
+    private UserChangeLogRepository userChangeLogRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Only touched by the scheduler thread
+    private final Map<Long, LocalDateTime> replayed = new HashMap<>();
+
+    private Counter appliedCounter;
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        appliedCounter = Counter.builder("auth.cluster.change_log.applied")
+                .description("Change log rows from other nodes applied to local caches")
+                .register(meterRegistry);
+        logger.info("User change log relay {} for node {}", enabled ? "enabled" : "disabled", nodeId);
+    }
+
+    // Synchronous on purpose: the row joins the publisher's transaction
+    @EventListener
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        if (!enabled || event.isRemote()) {
+            return;
+        }
+        userChangeLogRepository.save(new UserChangeLog(event.getUserId(), event.getEmail(),
+                event.getSecurityVersion(), event.getReason().name(), nodeId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.change-log.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime since = LocalDateTime.now().minus(lookbackMs, ChronoUnit.MILLIS);
+            replayed.values().removeIf(createdAt -> !createdAt.isAfter(since));
+
+            for (UserChangeLog row : userChangeLogRepository.findByCreatedAtAfterOrderByIdAsc(since)) {
+                if (nodeId.equals(row.getNodeId()) || replayed.putIfAbsent(row.getId(), row.getCreatedAt()) != null) {
+                    continue;
+                }
+                apply(row);
+            }
+        } catch (Exception e) {
+            logger.error("User change log poll failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.cluster.change-log.compaction-interval-ms:600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = userChangeLogRepository.deleteAllCreatedBefore(
+                LocalDateTime.now().minus(retentionMs, ChronoUnit.MILLIS));
+        logger.debug("Compacted {} user change log rows", deleted);
+    }
+
+    private void apply(UserChangeLog row) {
+        UserSecurityChangedEvent.Reason reason;
+        try {
+            reason = UserSecurityChangedEvent.Reason.valueOf(row.getReason());
+        } catch (IllegalArgumentException e) {
+            // Written by a newer node; evicting and re-checking the version is always safe
+            reason = UserSecurityChangedEvent.Reason.TOKENS_REVOKED;
+        }
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(
+                row.getUserId(), row.getEmail(), row.getSecurityVersion(), reason, true));
+        appliedCounter.increment();
+    }
+}
@@ -3,61 +3,95 @@ package com.legendaryUser.legendary.security;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.legendaryUser.legendary.model.User;
-import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-
-@Data
-public class UserPrincipal implements UserDetails {
-    private Long id;
-    private String email;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable: one instance is cached in PrincipalCache and handed to every request thread
+ * that authenticates as the user, so nothing may change it after construction.
+ */
+public final class UserPrincipal implements UserDetails {
+    // One immutable authority list per role, shared by every principal that holds it
+    private static final Map<String, List<GrantedAuthority>> ROLE_AUTHORITIES = new ConcurrentHashMap<>();
+
+    private final Long id;
+    private final String email;
     @JsonIgnore
-    private String password;
-    private boolean enabled;
-    private boolean accountNonLocked;
-    private Collection<? extends GrantedAuthority> authorities;
-
-    public UserPrincipal(Long id, String email, String password, boolean enabled, boolean accountNonLocked, Collection<? extends GrantedAuthority> authorities) {
+    private final String password;
+    private final boolean enabled;
+    private final boolean accountNonLocked;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final long securityVersion;
+
+    public UserPrincipal(Long id, String email, String password, boolean enabled, boolean accountNonLocked,
+                         Collection<? extends GrantedAuthority> authorities, long securityVersion) {
         this.id = id;
         this.email = email;
         this.password = password;
         this.enabled = enabled;
         this.accountNonLocked = accountNonLocked;
-        this.authorities = authorities;
+        this.authorities = Collections.unmodifiableCollection(authorities);
+        this.securityVersion = securityVersion;
     }
 
     public static UserPrincipal create(User user) {
-
-        String role = user.getRole().startsWith("ROLE_") ?
-                user.getRole() : "ROLE_" + user.getRole();
-
         return new UserPrincipal(
                 user.getId(),
                 user.getEmail(),
                 user.getPassword(),
                 user.isEnabled(),          // <- Now uses the real value
                 user.isAccountNonLocked(), // <- Now uses the real value
-                Collections.singletonList(new SimpleGrantedAuthority(role))
+                authoritiesFor(user.getRole()),
+                user.getSecurityVersion()
         );
     }
-    public String getEmail() {
-        return email;
+
+    // Rebuilds a principal from verified JWT claims. Tokens are only issued to enabled,
+    // unlocked accounts and a lock bumps the security version, so both flags hold here.
+    public static UserPrincipal fromClaims(Long id, String email, String role, long securityVersion) {
+        return new UserPrincipal(
+                id,
+                email,
+                null,
+                true,
+                true,
+                authoritiesFor(role),
+                securityVersion
+        );
     }
 
-    public void setEmail(String email) {
-        this.email = email;
+    static List<GrantedAuthority> authoritiesFor(String role) {
+        return ROLE_AUTHORITIES.computeIfAbsent(role, r -> Collections.singletonList(
+                new SimpleGrantedAuthority(r.startsWith("ROLE_") ? r : "ROLE_" + r)));
     }
 
+    public String getRole() {
+        if (authorities == null || authorities.isEmpty()) {
+            return null;
+        }
+        String name = authorities.iterator().next().getAuthority();
+        return name.startsWith("ROLE_") ? name.substring(5) : name;
+    }
+    public String getEmail() {
+        return email;
+    }
 
     public Long getId() {
         return id;
     }
 
+    public long getSecurityVersion() {
+        return securityVersion;
+    }
+
     @Override
     public String getUsername() {
         return email;
@@ -105,5 +139,10 @@ public class UserPrincipal implements UserDetails {
     public int hashCode() {
         return Objects.hash(id);
     }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal(id=" + id + ", email=" + email + ", authorities=" + authorities + ")";
+    }
 }
 
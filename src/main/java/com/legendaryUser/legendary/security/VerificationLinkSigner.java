@@ -0,0 +1,136 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.exception.InvalidTokenException;
+import com.legendaryUser.legendary.exception.TokenExpiredException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Self-contained email verification tokens: payload.signature, both base64url, where the
+ * payload is a version byte, the user id, the expiry in epoch seconds and the user's
+ * verification nonce, and the signature is its HMAC-SHA256. A valid signature proves the
+ * link was issued here; whether it is still current is decided by the nonce, which is
+ * replaced on every resend and cleared once the email is verified.
+ *
+ * The key is derived from app.security.email-verification.secret (the JWT secret unless
+ * set), so every node accepts links issued by any other.
+ */
+@Component
+public class VerificationLinkSigner {
+
+    private static final byte VERSION = 1;
+    private static final int NONCE_BYTES = 16;
+    private static final int PAYLOAD_BYTES = 1 + 8 + 8 + NONCE_BYTES;
+
+    @Value("${app.security.email-verification.secret:${app.jwt.secret}}")
+    private String secret;
+
+    @Value("${app.security.email-verification.expiration-hours:24}")
+    private long expirationHours;
+
+    @Autowired
+    private TokenGenerator tokenGenerator;
+
+    private ThreadLocal<Mac> macs;
+
+    /** What a signed token vouches for, once its signature and expiry have been checked. */
+    public static final class Claims {
+        private final Long userId;
+        private final String nonce;
+
+        Claims(Long userId, String nonce) {
+            this.userId = userId;
+            this.nonce = nonce;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getNonce() {
+            return nonce;
+        }
+    }
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        // A key of its own, so a verification signature can never pass for anything signed with the JWT secret
+        Mac derive = Mac.getInstance("HmacSHA256");
+        derive.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        SecretKeySpec key = new SecretKeySpec(
+                derive.doFinal("email-verification-link".getBytes(StandardCharsets.UTF_8)), "HmacSHA256");
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /** A fresh value for User.verificationNonce; invalidates every link signed with the previous one. */
+    public String newNonce() {
+        return tokenGenerator.urlSafeToken(NONCE_BYTES);
+    }
+
+    public String sign(Long userId, String nonce) {
+        long expiresAt = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())
+                + TimeUnit.HOURS.toSeconds(expirationHours);
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .put(VERSION)
+                .putLong(userId)
+                .putLong(expiresAt)
+                .put(Base64.getUrlDecoder().decode(nonce))
+                .array();
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(macs.get().doFinal(payload));
+    }
+
+    /**
+     * Checks a token's signature and expiry.
+     *
+     * @throws InvalidTokenException if the token is malformed or not signed with our key
+     * @throws TokenExpiredException if it was valid but has expired
+     */
+    public Claims verify(String token) {
+        int dot = token.indexOf('.');
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidTokenException("Invalid verification token");
+        }
+        if (payload.length != PAYLOAD_BYTES || !MessageDigest.isEqual(macs.get().doFinal(payload), signature)) {
+            throw new InvalidTokenException("Invalid verification token");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (buffer.get() != VERSION) {
+            throw new InvalidTokenException("Invalid verification token");
+        }
+        long userId = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        if (TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) >= expiresAt) {
+            throw new TokenExpiredException("Verification token has expired");
+        }
+        byte[] nonce = new byte[NONCE_BYTES];
+        buffer.get(nonce);
+        return new Claims(userId, Base64.getUrlEncoder().withoutPadding().encodeToString(nonce));
+    }
+}
@@ -0,0 +1,138 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.event.UserSecurityChangedEvent;
+import com.legendaryUser.legendary.util.ExpiringLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Date;
+
+/**
+ * Remembers the principal of recently verified bearer tokens so repeated calls with
+ * the same token skip signature verification. Disabled unless app.jwt.cache.enabled is set.
+ */
+@Component
+public class VerifiedTokenCache {
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    @Value("${app.jwt.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.jwt.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExpiringLruCache<Long, CachedToken> cache;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = new ExpiringLruCache<>(maxEntries, Runtime.getRuntime().availableProcessors() * 4);
+
+        FunctionCounter.builder("auth.jwt.cache.hits", cache, ExpiringLruCache::hitCount).register(meterRegistry);
+        FunctionCounter.builder("auth.jwt.cache.misses", cache, ExpiringLruCache::missCount).register(meterRegistry);
+        FunctionCounter.builder("auth.jwt.cache.evictions", cache, ExpiringLruCache::evictionCount).register(meterRegistry);
+        Gauge.builder("auth.jwt.cache.size", cache, ExpiringLruCache::size).register(meterRegistry);
+
+        logger.info("Verified token cache enabled: maxEntries={}, ttlMs={}", maxEntries, ttlMs);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public CachedToken get(String token) {
+        if (cache == null) {
+            return null;
+        }
+        CachedToken cached = cache.get(hash(token), System.currentTimeMillis());
+        // The key is only a hash, so confirm it is really the same token
+        if (cached == null || !cached.token.equals(token)) {
+            return null;
+        }
+        return cached;
+    }
+
+    public void put(String token, UserPrincipal principal, Date tokenExpiry, String tokenId) {
+        if (cache == null) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        if (tokenExpiry != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiry.getTime());
+        }
+        cache.put(hash(token), new CachedToken(token, principal, tokenId), expiresAt);
+    }
+
+    public void invalidate(String token) {
+        if (cache != null) {
+            cache.remove(hash(token));
+        }
+    }
+
+    public void invalidateUser(Long userId) {
+        if (cache == null || userId == null) {
+            return;
+        }
+        int removed = cache.removeIf(cached -> userId.equals(cached.principal.getId()));
+        logger.debug("Invalidated {} cached tokens for user id {}", removed, userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        if (event.getReason().invalidatesTokens()) {
+            invalidateUser(event.getUserId());
+        }
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    // 64-bit FNV-1a over the token characters
+    static long hash(String token) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    public static final class CachedToken {
+        private final String token;
+        private final UserPrincipal principal;
+        private final String tokenId;
+
+        CachedToken(String token, UserPrincipal principal, String tokenId) {
+            this.token = token;
+            this.principal = principal;
+            this.tokenId = tokenId;
+        }
+
+        public UserPrincipal getPrincipal() {
+            return principal;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+    }
+}
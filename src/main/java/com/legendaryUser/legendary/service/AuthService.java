@@ -4,31 +4,44 @@ import com.legendaryUser.legendary.dto.AuthResponse;
 import com.legendaryUser.legendary.dto.LoginRequest;
 import com.legendaryUser.legendary.dto.OtpVerificationRequest;
 import com.legendaryUser.legendary.dto.RegisterRequest;
+import com.legendaryUser.legendary.event.UserSecurityChangedEvent;
 import com.legendaryUser.legendary.exception.*;
-import com.legendaryUser.legendary.model.OtpToken;
+import com.legendaryUser.legendary.model.RefreshToken;
 import com.legendaryUser.legendary.model.User;
 import com.legendaryUser.legendary.model.VerificationToken;
-import com.legendaryUser.legendary.repository.OtpTokenRepository;
 import com.legendaryUser.legendary.repository.UserRepository;
 import com.legendaryUser.legendary.repository.VerificationTokenRepository;
 import com.legendaryUser.legendary.security.JwtUtils;
+import com.legendaryUser.legendary.security.JwtVerificationResult;
+import com.legendaryUser.legendary.security.JwtVerifier;
+import com.legendaryUser.legendary.security.TokenGenerator;
+import com.legendaryUser.legendary.security.TokenRevocationService;
 import com.legendaryUser.legendary.security.UserPrincipal;
-import io.github.bucket4j.Bucket;
+import com.legendaryUser.legendary.security.VerificationLinkSigner;
+import com.legendaryUser.legendary.security.VerifiedTokenCache;
+import com.legendaryUser.legendary.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.Random;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 
 @Service
 public class AuthService {
@@ -36,6 +49,7 @@ public class AuthService {
 
     private static final int MAX_FAILED_ATTEMPTS = 5;
     private static final int LOCK_TIME_DURATION_MINUTES = 30;
+    private static final int VERIFICATION_TOKEN_BYTES = 32;
 
     @Autowired
     private UserRepository userRepository;
@@ -44,7 +58,7 @@ public class AuthService {
     private VerificationTokenRepository verificationTokenRepository;
 
     @Autowired
-    private OtpTokenRepository otpTokenRepository;
+    private OtpStore otpStore;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -59,17 +73,98 @@ public class AuthService {
     private EmailService emailService;
 
     @Autowired
-    private RateLimitService rateLimitService;
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenGenerator tokenGenerator;
+
+    @Autowired
+    private VerificationLinkSigner verificationLinkSigner;
+
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private HeavyHitterDetector heavyHitterDetector;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @Value("${app.security.otp.length:6}")
     private int otpLength;
 
-    @Transactional
+    @Value("${app.security.email-verification.mode:table}")
+    private EmailVerificationMode emailVerificationMode;
+
+    @Value("${app.security.otp.coalescing.mode:none}")
+    private OtpCoalescingMode otpCoalescingMode;
+
+    @Value("${app.security.otp.coalescing.reuse-window-ms:300000}")
+    private long otpReuseWindowMs;
+
+    @Value("${app.security.otp.coalescing.resend-backoff-ms:30000}")
+    private long otpResendBackoffMs;
+
+    @Value("${app.security.otp.coalescing.max-sends:3}")
+    private int otpMaxSends;
+
+    @Value("${app.security.otp.coalescing.wait-ms:10000}")
+    private long otpCoalescingWaitMs;
+
+    private final SingleFlight<String> otpRequests = new SingleFlight<>();
+
+    private TransactionTemplate transactionTemplate;
+    private Counter otpIssued;
+    private Counter otpCoalesced;
+    private Counter otpSuppressed;
+    private Counter otpResent;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        otpIssued = otpRequestCounter("issued");
+        otpCoalesced = otpRequestCounter("coalesced");
+        otpSuppressed = otpRequestCounter("suppressed");
+        otpResent = otpRequestCounter("resent");
+    }
+
+    private Counter otpRequestCounter(String outcome) {
+        return Counter.builder("auth.otp.requests")
+                .tag("outcome", outcome)
+                .description("OTP requests by outcome: a new code, joined to a concurrent request, or an outstanding code reused")
+                .register(meterRegistry);
+    }
+
+    // Deliberately not @Transactional: the password hash can wait up to max-wait-ms for the
+    // hashing pool and the verification email goes to SMTP, so both run without a connection.
+    // Only the insert and the verification token share a transaction.
     public void registerUser(RegisterRequest registerRequest, String clientIp) {
         logger.info("Starting registration for email: {}, IP: {}", registerRequest.getEmail(), clientIp);
 
         try {
-            if (userRepository.existsByEmail(registerRequest.getEmail())) {
+            checkEmailRateLimit(RateLimitEndpoint.REGISTER, registerRequest.getEmail());
+
+            // Brand-new emails skip the lookup; a duplicate that slips past is caught by the unique constraint below
+            if (!registeredEmailFilter.definitelyAbsent(registerRequest.getEmail())
+                    && userRepository.existsByEmail(registerRequest.getEmail())) {
                 logger.warn("Registration failed: Email already exists - {}", registerRequest.getEmail());
                 throw new EmailAlreadyExistsException("Email is already in use!");
             }
@@ -82,13 +177,6 @@ public class AuthService {
                 role = "USER";
             }
 
-            // Rate limiting
-            Bucket bucket = rateLimitService.resolveBucket(clientIp);
-            if (!bucket.tryConsume(1)) {
-                logger.warn("Rate limit exceeded for IP: {}", clientIp);
-                throw new RateLimitExceededException("Too many registration attempts. Please try again later.");
-            }
-
             User user = new User();
             user.setEmail(registerRequest.getEmail());
             user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
@@ -98,36 +186,39 @@ public class AuthService {
             user.setCreatedAt(LocalDateTime.now());
             user.setUpdatedAt(LocalDateTime.now());
             user.setRole(role.toUpperCase());
+            if (emailVerificationMode == EmailVerificationMode.SIGNED) {
+                user.setVerificationNonce(verificationLinkSigner.newNonce());
+            }
 
-            User savedUser = userRepository.save(user);
-            logger.info("User saved to database: {}", savedUser.getEmail());
-
-            //Create and save verification token
-            String token = emailService.generateEmailVerificationToken();
-            VerificationToken verificationToken = new VerificationToken(token, savedUser);
-            verificationToken.setExpiryDate(LocalDateTime.now().plusHours(24));
-            verificationToken.setCreatedAt(LocalDateTime.now());
-
-            verificationTokenRepository.save(verificationToken);
-            logger.info("Verification token created for user: {}", savedUser.getEmail());
+            String token = transactionTemplate.execute(status -> {
+                try {
+                    userRepository.saveAndFlush(user);
+                } catch (DataIntegrityViolationException e) {
+                    logger.warn("Registration failed: Email already exists - {}", registerRequest.getEmail());
+                    throw new EmailAlreadyExistsException("Email is already in use!");
+                }
+                return createVerificationToken(user);
+            });
+            registeredEmailFilter.add(user.getEmail());
+            logger.info("User saved to database with verification token: {}", user.getEmail());
 
             //Send verification email with better error handling
             try {
                 emailService.sendEmailVerification(
-                        savedUser.getEmail(),
+                        user.getEmail(),
                         token,
-                        savedUser.getFirstName()
+                        user.getFirstName()
                 );
-                logger.info("Verification email sent to: {}", savedUser.getEmail());
+                logger.info("Verification email sent to: {}", user.getEmail());
 
             } catch (Exception emailException) {
                 logger.error("Failed to send verification email to {}: {}",
-                        savedUser.getEmail(), emailException.getMessage());
+                        user.getEmail(), emailException.getMessage());
             }
 
-            logger.info("Registration completed successfully for: {}", savedUser.getEmail());
+            logger.info("Registration completed successfully for: {}", user.getEmail());
 
-        } catch (EmailAlreadyExistsException | RateLimitExceededException e) {
+        } catch (EmailAlreadyExistsException | RateLimitExceededException | ServiceOverloadedException e) {
             // Re-throw business exceptions
             logger.error("Registration failed for {}: {}", registerRequest.getEmail(), e.getMessage());
             throw e;
@@ -143,6 +234,11 @@ public class AuthService {
         logger.info("Starting email verification for token: {}", token);
 
         try {
+            if (token.indexOf('.') >= 0) {
+                verifySignedEmail(token);
+                return;
+            }
+
             VerificationToken verificationToken = verificationTokenRepository.findByToken(token)
                     .orElseThrow(() -> {
                         logger.warn("Invalid verification token: {}", token);
@@ -161,6 +257,7 @@ public class AuthService {
             userRepository.save(user);
 
             verificationTokenRepository.delete(verificationToken);
+            publishSecurityChange(user, UserSecurityChangedEvent.Reason.EMAIL_VERIFIED);
 
             logger.info("Email verified successfully for user: {}", user.getEmail());
 
@@ -175,7 +272,34 @@ public class AuthService {
         }
     }
 
+    // Signed links cost one primary-key update; the user read after it only feeds the cache-eviction event
+    private void verifySignedEmail(String token) {
+        VerificationLinkSigner.Claims claims = verificationLinkSigner.verify(token);
+        if (userRepository.markEmailVerified(claims.getUserId(), claims.getNonce(), LocalDateTime.now()) == 0) {
+            // Already used, superseded by a resend, or the user is gone
+            logger.warn("Stale verification link for user id {}", claims.getUserId());
+            throw new InvalidTokenException("Invalid verification token");
+        }
+
+        User user = userRepository.findById(claims.getUserId())
+                .orElseThrow(() -> new InvalidTokenException("Invalid verification token"));
+        publishSecurityChange(user, UserSecurityChangedEvent.Reason.EMAIL_VERIFIED);
+        logger.info("Email verified successfully for user: {}", user.getEmail());
+    }
+
+    // Signed mode expects the user's current nonce to be set already; table mode needs the user's id
+    private String createVerificationToken(User user) {
+        if (emailVerificationMode == EmailVerificationMode.SIGNED) {
+            return verificationLinkSigner.sign(user.getId(), user.getVerificationNonce());
+        }
+        String token = tokenGenerator.urlSafeToken(VERIFICATION_TOKEN_BYTES);
+        verificationTokenRepository.save(new VerificationToken(token, user));
+        return token;
+    }
+
     public void resendVerificationEmail(String email, String clientIp) {
+        checkEmailRateLimit(RateLimitEndpoint.RESEND_VERIFICATION, email);
+
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -183,33 +307,42 @@ public class AuthService {
             throw new RuntimeException("Email is already verified");
         }
 
-        // Check rate limiting for resend
-        Bucket bucket = rateLimitService.resolveBucket(clientIp + "-resend");
-        if (!bucket.tryConsume(1)) {
-            throw new RateLimitExceededException("Too many resend attempts");
+        // Invalidate the links already sent: a new nonce for signed links, deleting the rows for table tokens
+        if (emailVerificationMode == EmailVerificationMode.SIGNED) {
+            user.setVerificationNonce(verificationLinkSigner.newNonce());
+            userRepository.save(user);
+        } else {
+            verificationTokenRepository.deleteByUser(user);
         }
 
-        // Delete old tokens
-        verificationTokenRepository.deleteByUser(user);
-
         // Create new token and send email
-        String token = emailService.generateEmailVerificationToken();
-        VerificationToken verificationToken = new VerificationToken(token, user);
-        verificationTokenRepository.save(verificationToken);
+        String token = createVerificationToken(user);
 
         emailService.sendEmailVerification(user.getEmail(), token, user.getFirstName());
     }
 
 
-    @Transactional
+    // Not @Transactional: a request joined to one in flight must not hold a connection while it waits
     public void requestOtp(LoginRequest loginRequest, String clientIp) {
-        // Check rate limiting
-        Bucket bucket = rateLimitService.resolveBucket(clientIp);
-        if (!bucket.tryConsume(1)) {
-            throw new RateLimitExceededException("Too many OTP requests. Please try again later.");
+        String email = loginRequest.getEmail();
+        checkEmailRateLimit(RateLimitEndpoint.REQUEST_OTP, email);
+        heavyHitterDetector.recordOtpRequest(email, clientIp);
+
+        if (otpCoalescingMode == OtpCoalescingMode.NONE) {
+            transactionTemplate.executeWithoutResult(status -> issueOtp(email));
+            return;
+        }
+        // Double-clicks and client retries that overlap share the request already in flight on this node
+        boolean ran = otpRequests.execute(email.toLowerCase(Locale.ROOT),
+                () -> transactionTemplate.executeWithoutResult(status -> issueOtp(email)), otpCoalescingWaitMs);
+        if (!ran) {
+            otpCoalesced.increment();
+            logger.debug("OTP request for {} joined one already in flight", email);
         }
+    }
 
-        User user = userRepository.findByEmail(loginRequest.getEmail())
+    private void issueOtp(String email) {
+        User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Check if account is locked
@@ -220,6 +353,7 @@ public class AuthService {
                 // Auto-unlock after lock time duration
                 user.unlockAccount();
                 userRepository.save(user);
+                publishSecurityChange(user, UserSecurityChangedEvent.Reason.UNLOCKED);
             }
         }
 
@@ -228,45 +362,84 @@ public class AuthService {
             throw new RuntimeException("Account is not verified. Please verify your email first.");
         }
 
+        LocalDateTime now = LocalDateTime.now();
+        if (otpCoalescingMode != OtpCoalescingMode.NONE) {
+            OtpStore.Outstanding live = otpStore.findOutstanding(user, now.minus(otpReuseWindowMs, ChronoUnit.MILLIS));
+            if (live != null) {
+                reuseOtp(user, live, now);
+                return;
+            }
+        }
+
         // Generate OTP
         String otp = generateOtp();
-        OtpToken otpToken = new OtpToken(otp, user);
-        otpTokenRepository.save(otpToken);
+        otpStore.save(user, otp);
 
         // Send OTP via email
         emailService.sendOtpEmail(user.getEmail(), otp, user.getFirstName());
+        otpIssued.increment();
 
         logger.info("OTP sent to user: {}", user.getEmail());
     }
 
-    @Transactional
-    public AuthResponse verifyOtp(OtpVerificationRequest otpRequest) {
+    // Re-sends the live code at most max-sends times in all, each gap twice the previous; anything else is suppressed
+    private void reuseOtp(User user, OtpStore.Outstanding live, LocalDateTime now) {
+        long backoffMs = otpResendBackoffMs << Math.min(live.getSendCount() - 1, 16);
+        boolean resend = otpCoalescingMode == OtpCoalescingMode.RESEND
+                && live.getCode() != null
+                && live.getSendCount() < otpMaxSends
+                && !now.isBefore(live.getLastSentAt().plus(backoffMs, ChronoUnit.MILLIS))
+                && otpStore.claimResend(live, now);
+
+        if (resend) {
+            emailService.sendOtpEmail(user.getEmail(), live.getCode(), user.getFirstName());
+            otpResent.increment();
+            logger.info("OTP re-sent to user: {} (delivery {})", user.getEmail(), live.getSendCount() + 1);
+        } else {
+            otpSuppressed.increment();
+            logger.info("OTP request for {} suppressed: a code sent {} is still live", user.getEmail(), live.getLastSentAt());
+        }
+    }
+
+    // Address-keyed policies and subnet blocks are enforced by RateLimitFilter; only the body carries the email
+    private void checkEmailRateLimit(RateLimitEndpoint endpoint, String email) {
+        checkEmailNotBlocked(email);
+        if (rateLimiter.tryConsume(endpoint, null, email) > 0) {
+            logger.warn("Rate limit exceeded for email {} on {}", email, endpoint);
+            throw new RateLimitExceededException("Too many requests for this email. Please try again later.");
+        }
+    }
+
+    private void checkEmailNotBlocked(String email) {
+        if (heavyHitterDetector.emailBlockedNanos(email) > 0) {
+            logger.warn("Rejected request for blocked email {}", email);
+            throw new RateLimitExceededException("Too many requests for this email. Please try again later.");
+        }
+    }
+
+    @Transactional(noRollbackFor = InvalidOtpException.class)
+    public AuthResponse verifyOtp(OtpVerificationRequest otpRequest, String clientIp) {
+        checkEmailNotBlocked(otpRequest.getEmail());
+
         User user = userRepository.findByEmail(otpRequest.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> {
+                    heavyHitterDetector.recordOtpFailure(otpRequest.getEmail(), clientIp);
+                    return new RuntimeException("User not found");
+                });
 
         // Check if account is locked
         if (user.isAccountLocked()) {
             throw new AccountLockedException("Account is locked. Please try again later.");
         }
 
-        Optional<OtpToken> otpTokenOptional = otpTokenRepository.findLatestValidOtpByUserEmail(
-                otpRequest.getEmail(), LocalDateTime.now());
-
-        if (otpTokenOptional.isEmpty()) {
+        OtpStore.Result result = otpStore.verify(user, otpRequest.getOtp());
+        if (result != OtpStore.Result.VALID) {
+            heavyHitterDetector.recordOtpFailure(user.getEmail(), clientIp);
             incrementFailedAttempts(user);
-            throw new InvalidOtpException("Invalid or expired OTP");
-        }
-
-        OtpToken otpToken = otpTokenOptional.get();
-
-        if (!otpToken.getToken().equals(otpRequest.getOtp())) {
-            incrementFailedAttempts(user);
-            otpTokenRepository.markAsUsed(otpToken.getToken());
-            throw new InvalidOtpException("Invalid OTP");
+            throw new InvalidOtpException(result == OtpStore.Result.MISSING ? "Invalid or expired OTP" : "Invalid OTP");
         }
 
         // OTP is valid
-        otpTokenRepository.markAsUsed(otpToken.getToken());
         user.resetFailedAttempts();
         userRepository.save(user);
 
@@ -276,24 +449,81 @@ public class AuthService {
                 userPrincipal, null, userPrincipal.getAuthorities());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
 
         logger.info("User logged in successfully with OTP: {}", user.getEmail());
 
-        return new AuthResponse(jwt, userPrincipal.getId(), userPrincipal.getUsername(),
+        return issueTokens(user, null);
+    }
+
+    // Renews a session from a refresh token: one indexed lookup, no OTP and no email
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public AuthResponse refresh(String refreshToken) {
+        RefreshToken consumed = refreshTokenService.consume(refreshToken);
+        User user = consumed.getUser();
+
+        if (user.isAccountLocked()) {
+            throw new AccountLockedException("Account is locked. Please try again later.");
+        }
+        if (!user.isEnabled()) {
+            throw new InvalidTokenException("Account is not verified");
+        }
+
+        logger.info("Session refreshed for user: {}", user.getEmail());
+        return issueTokens(user, consumed.getFamilyId());
+    }
+
+    private AuthResponse issueTokens(User user, String refreshFamilyId) {
+        UserPrincipal userPrincipal = UserPrincipal.create(user);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                userPrincipal, null, userPrincipal.getAuthorities());
+
+        String jwt = jwtUtils.generateJwtToken(authentication);
+        String refreshToken = refreshTokenService.issue(user, refreshFamilyId);
+
+        AuthResponse response = new AuthResponse(jwt, userPrincipal.getId(), userPrincipal.getUsername(),
                 user.getFirstName(), user.getLastName());
+        response.setRefreshToken(refreshToken);
+        return response;
     }
 
 
-    private String generateOtp() {
-        Random random = new Random();
-        StringBuilder otp = new StringBuilder();
+    /**
+     * Ends a session. The refresh token's family is revoked whenever one is supplied, so a
+     * client whose access token has already expired can still log out; the access token's
+     * jti is revoked only if the token verifies.
+     *
+     * @throws InvalidTokenException if there is neither a refresh token nor a valid access token
+     */
+    public void logout(String jwt, String refreshToken) {
+        JwtVerificationResult result = jwt != null ? jwtVerifier.verify(jwt) : null;
+        boolean hasRefreshToken = refreshToken != null && !refreshToken.isEmpty();
+        if (!hasRefreshToken && (result == null || !result.isValid())) {
+            throw new InvalidTokenException("Invalid or expired token");
+        }
 
-        for (int i = 0; i < otpLength; i++) {
-            otp.append(random.nextInt(10));
+        if (hasRefreshToken) {
+            refreshTokenService.revokeFamilyOf(refreshToken);
+        }
+        if (result == null || !result.isValid()) {
+            logger.info("Refresh token family revoked on logout");
+            return;
         }
 
-        return otp.toString();
+        String tokenId = result.getClaims().getId();
+        if (tokenId == null) {
+            throw new InvalidTokenException("Token cannot be revoked");
+        }
+
+        Number userId = result.getClaims().get(JwtUtils.CLAIM_USER_ID, Number.class);
+        tokenRevocationService.revoke(tokenId, userId != null ? userId.longValue() : null, result.getExpiration());
+        verifiedTokenCache.invalidate(jwt);
+        SecurityContextHolder.clearContext();
+
+        logger.info("Token revoked on logout for: {}", result.getSubject());
+    }
+
+    private String generateOtp() {
+        return tokenGenerator.numericCode(otpLength);
     }
 
     private void incrementFailedAttempts(User user) {
@@ -301,17 +531,30 @@ public class AuthService {
 
         if (user.getFailedAttempts() >= MAX_FAILED_ATTEMPTS) {
             user.lockAccount();
+            invalidateIssuedTokens(user, UserSecurityChangedEvent.Reason.LOCKED);
             logger.warn("Account locked due to too many failed attempts: {}", user.getEmail());
         }
 
         userRepository.save(user);
     }
 
+    // Bumps the user's security version; listeners only act on it once the change is committed
+    private void invalidateIssuedTokens(User user, UserSecurityChangedEvent.Reason reason) {
+        user.bumpSecurityVersion();
+        publishSecurityChange(user, reason);
+    }
+
+    private void publishSecurityChange(User user, UserSecurityChangedEvent.Reason reason) {
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(
+                user.getId(), user.getEmail(), user.getSecurityVersion(), reason));
+    }
+
     @Transactional
     public void cleanupExpiredTokens() {
         LocalDateTime now = LocalDateTime.now();
         verificationTokenRepository.deleteAllExpiredSince(now);
-        otpTokenRepository.deleteAllExpiredSince(now);
+        otpStore.deleteExpired();
+        refreshTokenService.deleteAllExpiredSince(now);
         logger.info("Cleaned up expired tokens");
     }
 
@@ -321,6 +564,7 @@ public class AuthService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         user.setRole("ADMIN");
+        invalidateIssuedTokens(user, UserSecurityChangedEvent.Reason.ROLE_CHANGED);
         userRepository.save(user);
         logger.info("User {} promoted to ADMIN", email);
     }
@@ -331,10 +575,22 @@ public class AuthService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         user.setRole("USER");
+        invalidateIssuedTokens(user, UserSecurityChangedEvent.Reason.ROLE_CHANGED);
         userRepository.save(user);
         logger.info("User {} demoted to USER", email);
     }
 
+    @Transactional
+    public void revokeAllTokens(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        invalidateIssuedTokens(user, UserSecurityChangedEvent.Reason.TOKENS_REVOKED);
+        userRepository.save(user);
+        refreshTokenService.revokeAllForUser(user.getId());
+        logger.info("All tokens revoked for user {}", email);
+    }
+
     public boolean isAdmin(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
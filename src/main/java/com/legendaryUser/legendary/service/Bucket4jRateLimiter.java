@@ -0,0 +1,18 @@
+package com.legendaryUser.legendary.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.security.rate-limit.engine", havingValue = "bucket4j", matchIfMissing = true)
+public class Bucket4jRateLimiter implements RateLimiter {
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Override
+    public long tryConsume(RateLimitEndpoint endpoint, String address, String email) {
+        return rateLimitService.tryConsume(endpoint, address, email);
+    }
+}
@@ -0,0 +1,301 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.config.RateLimitPolicy;
+import com.legendaryUser.legendary.config.RateLimitProperties;
+import com.legendaryUser.legendary.model.RateLimitBucket;
+import com.legendaryUser.legendary.repository.RateLimitBucketRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiter whose buckets live in the rate_limit_bucket table, so the configured
+ * limits hold for the whole cluster rather than per node.
+ *
+ * A node does not go to the database for every request. It leases a batch of tokens from
+ * the shared bucket (one row lock, one UPDATE) and spends them locally until the lease runs
+ * out; leases not used up within lease-ttl-ms are handed back. Leased tokens are debited
+ * from the shared bucket up front, so the cluster never admits more than the limit. The
+ * error is on the strict side instead: up to (nodes - 1) x lease-size tokens can sit unspent
+ * in other nodes' leases while a client is turned away, for at most lease-ttl-ms. A lease
+ * size of 1 is exact and costs a database round trip per request and policy; larger leases
+ * divide the writes by roughly the lease size. Unless configured, a policy leases a tenth of
+ * its capacity: a GLOBAL bucket of 600 goes to the database once per 60 requests per node,
+ * while small per-client buckets stay at or near exact.
+ */
+@Component
+@ConditionalOnProperty(name = "app.security.rate-limit.engine", havingValue = "cluster")
+public class ClusterRateLimiter implements RateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRateLimiter.class);
+
+    // Tokens are kept in thousandths of a permit so refill can be applied continuously
+    private static final long MILLI = 1000;
+
+    // 0: a tenth of each policy's capacity
+    @Value("${app.security.rate-limit.cluster.lease-size:0}")
+    private long defaultLeaseSize;
+
+    @Value("${app.security.rate-limit.cluster.lease-ttl-ms:5000}")
+    private long leaseTtlMs;
+
+    @Autowired
+    private RateLimitProperties rateLimitProperties;
+
+    @Autowired
+    private RateLimitBucketRepository bucketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+    private Timer leaseTimer;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Callers check limits before opening a transaction of their own, so this normally starts
+        // the only one; REQUIRES_NEW keeps the row lock short even if a future caller forgets
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        leaseTimer = Timer.builder("auth.rate_limit.cluster.lease")
+                .description("Database round trips to lease tokens from a shared bucket")
+                .register(meterRegistry);
+        Gauge.builder("auth.rate_limit.cluster.leases", leases, Map::size).register(meterRegistry);
+        for (RateLimitPolicy policy : rateLimitProperties.getPolicies().values()) {
+            logger.info("Cluster rate limiter: policy {} leases {} tokens at a time", policy.getName(), leaseSizeOf(policy));
+        }
+        logger.info("Cluster rate limiter: lease TTL {} ms", leaseTtlMs);
+    }
+
+    @Override
+    public long tryConsume(RateLimitEndpoint endpoint, String address, String email) {
+        RateLimitPolicy[] policies = rateLimitProperties.policiesFor(endpoint);
+        Lease[] charged = new Lease[policies.length];
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < policies.length; i++) {
+            RateLimitPolicy policy = policies[i];
+            String key = RateLimitService.keyFor(policy, address, email);
+            if (key == null) {
+                continue;
+            }
+            String bucketKey = DigestUtils.sha256Hex(policy.getName() + '\0' + key);
+            long cost = policy.costOf(endpoint) * MILLI;
+
+            long nanosToWait;
+            Lease lease;
+            do {
+                lease = leases.computeIfAbsent(bucketKey, k -> new Lease(k, policy));
+                nanosToWait = lease.take(cost, now);
+            } while (nanosToWait < 0); // lease was handed back concurrently, start a new one
+
+            if (nanosToWait > 0) {
+                // All or nothing: the earlier policies' tokens go back into their leases
+                for (int j = 0; j < i; j++) {
+                    if (charged[j] != null) {
+                        charged[j].give(policies[j].costOf(endpoint) * MILLI);
+                    }
+                }
+                return nanosToWait;
+            }
+            charged[i] = lease;
+        }
+        return 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.rate-limit.cluster.lease-ttl-ms:5000}")
+    public void returnExpiredLeases() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Lease> it = leases.values().iterator(); it.hasNext(); ) {
+            Lease lease = it.next();
+            if (lease.isExpired(now)) {
+                it.remove();
+                lease.close();
+            }
+        }
+    }
+
+    // A bucket idle for its full refill time is full again, which is what a missing row means
+    @Scheduled(fixedRateString = "${app.security.rate-limit.cluster.cleanup-interval-ms:600000}")
+    public void deleteIdleBuckets() {
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        for (RateLimitPolicy policy : rateLimitProperties.getPolicies().values()) {
+            deleted += bucketRepository.deleteIdle(policy.getName(), now - policy.fullRefillMillis());
+        }
+        if (deleted > 0) {
+            logger.debug("Deleted {} idle rate limit buckets", deleted);
+        }
+    }
+
+    @PreDestroy
+    void returnAllLeases() {
+        for (Iterator<Lease> it = leases.values().iterator(); it.hasNext(); ) {
+            Lease lease = it.next();
+            it.remove();
+            lease.close();
+        }
+    }
+
+    /**
+     * Takes up to want milli-tokens from the shared bucket, but only if at least need are there.
+     *
+     * @return the milli-tokens the bucket held after refill, before anything was taken
+     */
+    private long lease(String bucketKey, RateLimitPolicy policy, long want, long need, long now) {
+        long start = System.nanoTime();
+        try {
+            return leaseOnce(bucketKey, policy, want, need, now);
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted the row first; it exists now, so the retry takes the lock
+            return leaseOnce(bucketKey, policy, want, need, now);
+        } finally {
+            leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private long leaseOnce(String bucketKey, RateLimitPolicy policy, long want, long need, long now) {
+        return transactionTemplate.execute(status -> {
+            long capacity = policy.getCapacity() * MILLI;
+            RateLimitBucket bucket = bucketRepository.findForUpdate(bucketKey).orElse(null);
+
+            long available;
+            if (bucket == null) {
+                bucket = new RateLimitBucket(bucketKey, policy.getName(), capacity, now);
+                available = capacity;
+            } else {
+                // Clocks differ between nodes; never refill backwards
+                long elapsed = Math.min(policy.fullRefillMillis(), Math.max(0, now - bucket.getUpdatedAtMillis()));
+                long refilled = elapsed * policy.getRefillTokens() * MILLI / policy.getRefillPeriod().toMillis();
+                available = Math.min(capacity, bucket.getMilliTokens() + refilled);
+            }
+
+            if (available >= need) {
+                bucket.setMilliTokens(available - Math.min(want, available));
+                bucket.setUpdatedAtMillis(Math.max(now, bucket.getUpdatedAtMillis()));
+                bucketRepository.saveAndFlush(bucket);
+            }
+            return available;
+        });
+    }
+
+    private long leaseSizeOf(RateLimitPolicy policy) {
+        if (policy.getLeaseSize() > 0) {
+            return policy.getLeaseSize();
+        }
+        return defaultLeaseSize > 0 ? Math.min(defaultLeaseSize, policy.getCapacity()) : Math.max(1, policy.getCapacity() / 10);
+    }
+
+    private long nanosUntil(RateLimitPolicy policy, long missing) {
+        long perMilliToken = policy.getRefillPeriod().toNanos() / (policy.getRefillTokens() * MILLI);
+        return Math.max(1, missing * Math.max(1, perMilliToken));
+    }
+
+    /**
+     * Tokens this node has leased from one shared bucket and not spent yet. The monitor only
+     * guards the local count; every database call happens outside it, so a slow lease never
+     * blocks requests the lease can still pay for, nor the scheduler handing leases back.
+     * Threads that find the lease short each lease for themselves, which can park a few
+     * extra batches here under a burst; they are handed back when the lease expires.
+     */
+    private final class Lease {
+        private final String bucketKey;
+        private final RateLimitPolicy policy;
+        private long milliTokens;
+        private long expiresAt;
+        private boolean closed;
+
+        Lease(String bucketKey, RateLimitPolicy policy) {
+            this.bucketKey = bucketKey;
+            this.policy = policy;
+        }
+
+        /**
+         * @return 0 when paid, the nanoseconds until the shared bucket could pay, or -1 if
+         *         this lease has been closed and the caller should fetch a new one
+         */
+        long take(long cost, long now) {
+            synchronized (this) {
+                if (closed) {
+                    return -1;
+                }
+                if (milliTokens >= cost) {
+                    milliTokens -= cost;
+                    return 0;
+                }
+            }
+
+            long want = Math.max(cost, leaseSizeOf(policy) * MILLI);
+            long available = lease(bucketKey, policy, want, cost, now);
+            if (available < cost) {
+                return nanosUntil(policy, cost - available);
+            }
+
+            long surplus = Math.min(want, available) - cost;
+            synchronized (this) {
+                if (!closed) {
+                    milliTokens += surplus;
+                    expiresAt = now + leaseTtlMs;
+                    return 0;
+                }
+            }
+            // Handed back while we were leasing; this request is paid, the rest goes home
+            giveBackToBucket(surplus);
+            return 0;
+        }
+
+        void give(long cost) {
+            synchronized (this) {
+                if (!closed) {
+                    milliTokens += cost;
+                    return;
+                }
+            }
+            giveBackToBucket(cost);
+        }
+
+        synchronized boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        void close() {
+            long unspent;
+            synchronized (this) {
+                closed = true;
+                unspent = milliTokens;
+                milliTokens = 0;
+            }
+            giveBackToBucket(unspent);
+        }
+
+        private void giveBackToBucket(long tokens) {
+            if (tokens > 0) {
+                bucketRepository.giveBack(bucketKey, tokens, policy.getCapacity() * MILLI);
+            }
+        }
+    }
+}
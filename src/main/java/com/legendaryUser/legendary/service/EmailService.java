@@ -14,7 +14,6 @@ import org.thymeleaf.context.Context;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
-import java.util.UUID;
 
 @Service
 public class EmailService {
@@ -91,8 +90,4 @@ public class EmailService {
             throw new RuntimeException("Failed to send email", e);
         }
     }
-
-    public String generateEmailVerificationToken() {
-        return UUID.randomUUID().toString();
-    }
 }
@@ -0,0 +1,13 @@
+package com.legendaryUser.legendary.service;
+
+/**
+ * How AuthService issues email verification links. Either way, a token containing a '.'
+ * is checked as a signed link and any other as a table token, so links already mailed
+ * keep working after the mode is switched.
+ */
+public enum EmailVerificationMode {
+    // Random token stored in verification_tokens, looked up and deleted on use
+    TABLE,
+    // HMAC-signed link checked against User.verificationNonce; no token rows at all
+    SIGNED
+}
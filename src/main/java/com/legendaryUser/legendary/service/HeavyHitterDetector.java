@@ -0,0 +1,279 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.util.BloomFilter;
+import com.legendaryUser.legendary.util.CountMinSketch;
+import com.legendaryUser.legendary.util.HeavyHitters;
+import com.legendaryUser.legendary.util.PackedAddress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spots credential-stuffing traffic that per-key buckets cannot: one email hit from many
+ * addresses, or many emails hit from one subnet. OTP requests and failed OTP checks are
+ * counted per email and per subnet in count-min sketches over a sliding window, and the
+ * heaviest keys of each are kept in a top-K list. Memory is fixed by the sketch and list
+ * sizes whatever the traffic.
+ *
+ * A key is blocked for block-duration-ms only when its count minus the sketch's error bound
+ * reaches the threshold, so a busy window makes the detector less eager rather than block
+ * clients on collisions. Blocks are checked by RateLimitFilter (subnets) and AuthService
+ * (emails).
+ */
+@Component
+public class HeavyHitterDetector {
+    private static final Logger logger = LoggerFactory.getLogger(HeavyHitterDetector.class);
+
+    @Value("${app.security.heavy-hitters.enabled:true}")
+    private boolean enabled;
+
+    // The window is slices x slice-ms; one slice is dropped every slice-ms
+    @Value("${app.security.heavy-hitters.slice-ms:100000}")
+    private long sliceMs;
+
+    @Value("${app.security.heavy-hitters.slices:6}")
+    private int slices;
+
+    @Value("${app.security.heavy-hitters.width:16384}")
+    private int width;
+
+    @Value("${app.security.heavy-hitters.depth:4}")
+    private int depth;
+
+    @Value("${app.security.heavy-hitters.top-k:20}")
+    private int topK;
+
+    @Value("${app.security.heavy-hitters.block-enabled:true}")
+    private boolean blockEnabled;
+
+    @Value("${app.security.heavy-hitters.block-duration-ms:900000}")
+    private long blockDurationMs;
+
+    @Value("${app.security.heavy-hitters.max-blocks:10000}")
+    private int maxBlocks;
+
+    @Value("${app.security.heavy-hitters.thresholds.email-otp-requests:20}")
+    private long emailOtpRequestThreshold;
+
+    @Value("${app.security.heavy-hitters.thresholds.email-otp-failures:10}")
+    private long emailOtpFailureThreshold;
+
+    @Value("${app.security.heavy-hitters.thresholds.subnet-otp-requests:300}")
+    private long subnetOtpRequestThreshold;
+
+    @Value("${app.security.heavy-hitters.thresholds.subnet-otp-failures:50}")
+    private long subnetOtpFailureThreshold;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Tracker emailOtpRequests;
+    private Tracker emailOtpFailures;
+    private Tracker subnetOtpRequests;
+    private Tracker subnetOtpFailures;
+    private List<Tracker> trackers;
+
+    // Keyed by email hash and subnet fingerprint; bounded by max-blocks
+    private final Map<Long, Block> emailBlocks = new ConcurrentHashMap<>();
+    private final Map<Long, Block> subnetBlocks = new ConcurrentHashMap<>();
+
+    private Counter blocksCreated;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        emailOtpRequests = new Tracker("email-otp-requests", emailOtpRequestThreshold, emailBlocks);
+        emailOtpFailures = new Tracker("email-otp-failures", emailOtpFailureThreshold, emailBlocks);
+        subnetOtpRequests = new Tracker("subnet-otp-requests", subnetOtpRequestThreshold, subnetBlocks);
+        subnetOtpFailures = new Tracker("subnet-otp-failures", subnetOtpFailureThreshold, subnetBlocks);
+        trackers = List.of(emailOtpRequests, emailOtpFailures, subnetOtpRequests, subnetOtpFailures);
+
+        blocksCreated = Counter.builder("auth.heavy_hitters.blocks")
+                .description("Temporary blocks placed on emails or subnets flagged as heavy hitters")
+                .register(meterRegistry);
+        Gauge.builder("auth.heavy_hitters.active_blocks", this, d -> d.emailBlocks.size() + d.subnetBlocks.size())
+                .register(meterRegistry);
+
+        long bytes = trackers.stream().mapToLong(t -> t.sketch.sizeInBytes()).sum();
+        logger.info("Heavy hitter detection: {} ms window in {} slices, {}x{} sketches, {} KB total",
+                windowMs(), slices, depth, width, bytes / 1024);
+    }
+
+    public void recordOtpRequest(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        emailOtpRequests.record(emailHash(email), email.toLowerCase(Locale.ROOT));
+        if (clientIp != null) {
+            subnetOtpRequests.record(PackedAddress.subnetFingerprint(clientIp), clientIp);
+        }
+    }
+
+    public void recordOtpFailure(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        emailOtpFailures.record(emailHash(email), email.toLowerCase(Locale.ROOT));
+        if (clientIp != null) {
+            subnetOtpFailures.record(PackedAddress.subnetFingerprint(clientIp), clientIp);
+        }
+    }
+
+    // Nanoseconds left on a block of the client's subnet, 0 if none
+    public long subnetBlockedNanos(String clientIp) {
+        if (!enabled || subnetBlocks.isEmpty()) {
+            return 0;
+        }
+        return remainingNanos(subnetBlocks.get(PackedAddress.subnetFingerprint(clientIp)));
+    }
+
+    // Nanoseconds left on a block of the email, 0 if none
+    public long emailBlockedNanos(String email) {
+        if (!enabled || emailBlocks.isEmpty()) {
+            return 0;
+        }
+        return remainingNanos(emailBlocks.get(emailHash(email)));
+    }
+
+    /** Current top offenders per tracker and the active blocks, for the admin endpoint. */
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        if (!enabled) {
+            return report;
+        }
+        report.put("windowMs", windowMs());
+
+        Map<String, Object> offenders = new LinkedHashMap<>();
+        for (Tracker tracker : trackers) {
+            Map<String, Object> section = new LinkedHashMap<>();
+            section.put("threshold", tracker.threshold);
+            section.put("errorBound", tracker.sketch.errorBound());
+            section.put("events", tracker.sketch.totalEvents());
+            List<Map<String, Object>> top = new ArrayList<>();
+            for (HeavyHitters.Entry entry : tracker.heavyHitters.snapshot()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("key", entry.getLabel());
+                row.put("estimate", entry.getCount());
+                row.put("blocked", remainingNanos(tracker.blocks.get(entry.getHash())) > 0);
+                top.add(row);
+            }
+            section.put("top", top);
+            offenders.put(tracker.name, section);
+        }
+        report.put("offenders", offenders);
+
+        List<Map<String, Object>> blocks = describe(emailBlocks, "email");
+        blocks.addAll(describe(subnetBlocks, "subnet"));
+        report.put("blocks", blocks);
+        return report;
+    }
+
+    @Scheduled(fixedRateString = "${app.security.heavy-hitters.slice-ms:100000}")
+    public void rotate() {
+        if (!enabled) {
+            return;
+        }
+        for (Tracker tracker : trackers) {
+            tracker.sketch.rotate();
+            tracker.heavyHitters.refresh(tracker.sketch::estimate);
+        }
+
+        long now = System.currentTimeMillis();
+        emailBlocks.values().removeIf(block -> block.untilMillis <= now);
+        subnetBlocks.values().removeIf(block -> block.untilMillis <= now);
+    }
+
+    private List<Map<String, Object>> describe(Map<Long, Block> blocks, String type) {
+        List<Map<String, Object>> described = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Block block : blocks.values()) {
+            if (block.untilMillis > now) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("type", type);
+                row.put("key", block.label);
+                row.put("reason", block.reason);
+                row.put("expiresInSeconds", TimeUnit.MILLISECONDS.toSeconds(block.untilMillis - now));
+                described.add(row);
+            }
+        }
+        return described;
+    }
+
+    private long windowMs() {
+        return sliceMs * slices;
+    }
+
+    private static long remainingNanos(Block block) {
+        if (block == null) {
+            return 0;
+        }
+        long remaining = block.untilMillis - System.currentTimeMillis();
+        return remaining > 0 ? TimeUnit.MILLISECONDS.toNanos(remaining) : 0;
+    }
+
+    private static long emailHash(String email) {
+        return BloomFilter.hash64(email.toLowerCase(Locale.ROOT));
+    }
+
+    private final class Tracker {
+        final String name;
+        final long threshold;
+        final Map<Long, Block> blocks;
+        final CountMinSketch sketch = new CountMinSketch(width, depth, slices);
+        final HeavyHitters heavyHitters = new HeavyHitters(topK);
+
+        Tracker(String name, long threshold, Map<Long, Block> blocks) {
+            this.name = name;
+            this.threshold = threshold;
+            this.blocks = blocks;
+        }
+
+        void record(long hash, String label) {
+            long estimate = sketch.add(hash);
+            heavyHitters.offer(hash, label, estimate);
+
+            // Act on the lower bound only: the true count is at least estimate - errorBound
+            if (blockEnabled && estimate - sketch.errorBound() >= threshold && remainingNanos(blocks.get(hash)) == 0) {
+                if (emailBlocks.size() + subnetBlocks.size() >= maxBlocks) {
+                    logger.warn("Heavy hitter block list full, not blocking {} ({})", label, name);
+                    return;
+                }
+                long until = System.currentTimeMillis() + blockDurationMs;
+                blocks.put(hash, new Block(label, name, until));
+                blocksCreated.increment();
+                logger.warn("Blocking {} for {} ms: ~{} {} in the last {} ms",
+                        label, blockDurationMs, estimate, name, windowMs());
+            }
+        }
+    }
+
+    private static final class Block {
+        final String label;
+        final String reason;
+        final long untilMillis;
+
+        Block(String label, String reason, long untilMillis) {
+            this.label = label;
+            this.reason = reason;
+            this.untilMillis = untilMillis;
+        }
+    }
+}
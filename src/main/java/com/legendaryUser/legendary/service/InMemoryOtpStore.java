@@ -0,0 +1,233 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.exception.ServiceOverloadedException;
+import com.legendaryUser.legendary.model.User;
+import com.legendaryUser.legendary.util.TimingWheelStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTPs kept in this node's memory: no insert on request, no join and UPDATE on verify, and
+ * no purge job. Entries are spread over shards by email so each shard's timing wheel and
+ * size counter see a fraction of the traffic, and expire through the wheel.
+ *
+ * Only an HMAC of the code is stored, under a key generated at startup, so a heap dump
+ * doesn't hand out live codes. Every node has its own OTPs: in a multi-node deployment
+ * either route /auth/request-otp and /auth/verify-otp for an email to the same node or use
+ * the jpa store. A restart drops outstanding OTPs; users simply request a new one.
+ */
+@Component
+@ConditionalOnProperty(name = "app.security.otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryOtpStore.class);
+
+    // Returned by a full shard; never handed an OTP
+    private static final Entry OVERFLOW = new Entry();
+
+    @Value("${app.security.otp.expiration-minutes:10}")
+    private long expirationMinutes;
+
+    @Value("${app.security.otp.max-attempts:1}")
+    private int maxAttempts;
+
+    @Value("${app.security.otp.memory.shards:16}")
+    private int shardCount;
+
+    @Value("${app.security.otp.memory.max-entries:1000000}")
+    private int maxEntries;
+
+    @Value("${app.security.otp.memory.tick-ms:10000}")
+    private long tickMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TimingWheelStore<String, Entry>[] shards;
+    private int shardMask;
+    private long ttlMillis;
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    void init() throws GeneralSecurityException {
+        int count = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        ttlMillis = TimeUnit.MINUTES.toMillis(expirationMinutes);
+        shards = new TimingWheelStore[count];
+        shardMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            shards[i] = new TimingWheelStore<>(Math.max(1, maxEntries / count), ttlMillis, tickMs, OVERFLOW);
+        }
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec keySpec = new SecretKeySpec(key, "HmacSHA256");
+        Mac.getInstance("HmacSHA256").init(keySpec); // fail at startup, not on the first login
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        Gauge.builder("auth.otp.memory.entries", this, InMemoryOtpStore::size).register(meterRegistry);
+        logger.info("In-memory OTP store: {} shards, {} entries max, {} attempts per OTP", count, maxEntries, maxAttempts);
+    }
+
+    @Override
+    public void save(User user, String otp) {
+        String email = normalize(user.getEmail());
+        Entry entry = shardOf(email).get(email, k -> new Entry(), System.currentTimeMillis());
+        if (entry == OVERFLOW) {
+            logger.warn("In-memory OTP store is full, refusing OTP for {}", email);
+            throw new ServiceOverloadedException("Too many pending one-time passwords. Please try again shortly.",
+                    TimeUnit.MILLISECONDS.toSeconds(tickMs) + 1);
+        }
+        byte[] hash = hash(email, otp);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            issue(entry, hash);
+            return;
+        }
+        // Unlike a row in the jpa store, the code isn't undone by a rollback, so it only goes live on commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                issue(entry, hash);
+            }
+        });
+    }
+
+    private void issue(Entry entry, byte[] hash) {
+        long now = System.currentTimeMillis();
+        entry.issue(hash, now, now + ttlMillis);
+    }
+
+    @Override
+    public Result verify(User user, String otp) {
+        String key = normalize(user.getEmail());
+        long now = System.currentTimeMillis();
+        Entry entry = shardOf(key).getIfPresent(key, now);
+        if (entry == null) {
+            return Result.MISSING;
+        }
+        return entry.verify(hash(key, otp), now, maxAttempts);
+    }
+
+    // Only a hash is kept, so the code can be suppressed but never re-sent
+    @Override
+    public Outstanding findOutstanding(User user, LocalDateTime issuedAfter) {
+        String key = normalize(user.getEmail());
+        long now = System.currentTimeMillis();
+        Entry entry = shardOf(key).getIfPresent(key, now);
+        if (entry == null) {
+            return null;
+        }
+        long issuedAtMillis = entry.liveIssuedAt(now);
+        if (issuedAtMillis < 0
+                || issuedAtMillis < issuedAfter.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()) {
+            return null;
+        }
+        LocalDateTime issuedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(issuedAtMillis), ZoneId.systemDefault());
+        return new Outstanding(null, null, 1, issuedAt);
+    }
+
+    @Override
+    public boolean claimResend(Outstanding otp, LocalDateTime now) {
+        return false;
+    }
+
+    // Expiry is the timing wheel's job
+    @Override
+    public void deleteExpired() {
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.otp.memory.tick-ms:10000}")
+    public void expireEntries() {
+        long now = System.currentTimeMillis();
+        for (TimingWheelStore<String, Entry> shard : shards) {
+            shard.advance(now);
+        }
+    }
+
+    private long size() {
+        long size = 0;
+        for (TimingWheelStore<String, Entry> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private TimingWheelStore<String, Entry> shardOf(String email) {
+        int h = email.hashCode();
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+
+    private byte[] hash(String email, String otp) {
+        Mac mac = macs.get();
+        mac.update(email.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(otp.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /** The latest OTP issued to one email. */
+    private static final class Entry {
+        private byte[] hash;
+        private long issuedAtMillis;
+        private long expiresAtMillis;
+        private int attempts;
+
+        synchronized void issue(byte[] hash, long issuedAtMillis, long expiresAtMillis) {
+            this.hash = hash;
+            this.issuedAtMillis = issuedAtMillis;
+            this.expiresAtMillis = expiresAtMillis;
+            this.attempts = 0;
+        }
+
+        // When the live code was issued, or -1 if there is none
+        synchronized long liveIssuedAt(long now) {
+            return hash == null || now >= expiresAtMillis ? -1 : issuedAtMillis;
+        }
+
+        synchronized Result verify(byte[] candidate, long now, int maxAttempts) {
+            if (hash == null || now >= expiresAtMillis) {
+                return Result.MISSING;
+            }
+            if (MessageDigest.isEqual(hash, candidate)) {
+                hash = null;
+                return Result.VALID;
+            }
+            if (++attempts >= maxAttempts) {
+                hash = null;
+            }
+            return Result.INVALID;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.model.OtpToken;
+import com.legendaryUser.legendary.model.User;
+import com.legendaryUser.legendary.repository.OtpTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "app.security.otp.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaOtpStore implements OtpStore {
+
+    @Autowired
+    private OtpTokenRepository otpTokenRepository;
+
+    // Only the newest OTP is live, which keeps the per-user index range to a single row
+    @Override
+    public void save(User user, String otp) {
+        otpTokenRepository.invalidateOutstanding(user.getId());
+        otpTokenRepository.save(new OtpToken(otp, user));
+    }
+
+    // A wrong code burns the OTP as well, so each one gets a single attempt
+    @Override
+    public Result verify(User user, String otp) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<OtpToken> otpToken =
+                otpTokenRepository.findFirstByUserIdAndUsedFalseAndExpiryDateAfterOrderByCreatedAtDesc(user.getId(), now);
+        if (otpToken.isEmpty()) {
+            return Result.MISSING;
+        }
+
+        Long id = otpToken.get().getId();
+        if (otpTokenRepository.consumeIfMatches(id, otp, now) == 1) {
+            return Result.VALID;
+        }
+        // No row either way means a concurrent request used it first
+        return otpTokenRepository.markAsUsed(id) == 1 ? Result.INVALID : Result.MISSING;
+    }
+
+    @Override
+    public Outstanding findOutstanding(User user, LocalDateTime issuedAfter) {
+        return otpTokenRepository
+                .findFirstByUserIdAndUsedFalseAndExpiryDateAfterOrderByCreatedAtDesc(user.getId(), LocalDateTime.now())
+                .filter(token -> !token.getCreatedAt().isBefore(issuedAfter))
+                .map(token -> new Outstanding(token.getId(), token.getToken(), token.getSendCount(), token.getLastSentAt()))
+                .orElse(null);
+    }
+
+    @Override
+    public boolean claimResend(Outstanding otp, LocalDateTime now) {
+        return otpTokenRepository.markResent(otp.getId(), otp.getSendCount(), now) == 1;
+    }
+
+    @Override
+    public void deleteExpired() {
+        otpTokenRepository.deleteAllExpiredSince(LocalDateTime.now());
+    }
+}
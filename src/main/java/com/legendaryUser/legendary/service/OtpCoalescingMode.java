@@ -0,0 +1,15 @@
+package com.legendaryUser.legendary.service;
+
+/**
+ * How AuthService answers an OTP request for an email that already has a live code issued
+ * within the reuse window. Concurrent requests for the same email are collapsed into one
+ * in every mode but NONE.
+ */
+public enum OtpCoalescingMode {
+    // Mint and mail a new code on every request
+    NONE,
+    // Send nothing; the code already delivered stays valid
+    SUPPRESS,
+    // Mail the same code again, with a growing gap between sends
+    RESEND
+}
@@ -0,0 +1,77 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where issued login OTPs live until they are used or expire, selected with
+ * app.security.otp.store: jpa (the otp_tokens table, shared by all nodes) or memory
+ * (this node only, so it needs sticky routing on the user's email).
+ */
+public interface OtpStore {
+
+    enum Result {
+        VALID,
+        // Wrong code for a live OTP; counts against the OTP's attempts
+        INVALID,
+        // No live OTP for the email: never issued, expired, used or out of attempts
+        MISSING
+    }
+
+    void save(User user, String otp);
+
+    /**
+     * Checks the code against the user's latest live OTP. A valid OTP is consumed, so it
+     * can only be used once.
+     */
+    Result verify(User user, String otp);
+
+    /**
+     * The user's live OTP if it was issued at or after issuedAfter, otherwise null. Lets a
+     * repeated request reuse the code instead of minting and mailing a new one.
+     */
+    Outstanding findOutstanding(User user, LocalDateTime issuedAfter);
+
+    /**
+     * Claims one re-send of an outstanding OTP.
+     *
+     * @return false if another request claimed it first, it was used meanwhile, or the
+     *         store can't give the code back
+     */
+    boolean claimResend(Outstanding otp, LocalDateTime now);
+
+    void deleteExpired();
+
+    /** A live OTP as seen by findOutstanding. */
+    final class Outstanding {
+        private final Long id;
+        // Null when the store only keeps a hash of the code
+        private final String code;
+        private final int sendCount;
+        private final LocalDateTime lastSentAt;
+
+        public Outstanding(Long id, String code, int sendCount, LocalDateTime lastSentAt) {
+            this.id = id;
+            this.code = code;
+            this.sendCount = sendCount;
+            this.lastSentAt = lastSentAt;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public int getSendCount() {
+            return sendCount;
+        }
+
+        public LocalDateTime getLastSentAt() {
+            return lastSentAt;
+        }
+    }
+}
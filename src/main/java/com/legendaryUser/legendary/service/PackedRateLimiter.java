@@ -0,0 +1,286 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.config.RateLimitPolicy;
+import com.legendaryUser.legendary.config.RateLimitProperties;
+import com.legendaryUser.legendary.util.PackedAddress;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket limiter with no per-request allocation and no per-client objects.
+ *
+ * Client addresses are parsed in place into packed form (see PackedAddress) and reduced
+ * to a 64-bit key; emails are hashed case-insensitively. Each keyed policy owns a fixed
+ * open-addressing table laid out as (key, state) pairs in one AtomicLongArray. A key
+ * claims an empty slot with a CAS and keeps it; the bucket state is a single long updated
+ * by CAS:
+ *
+ *   bits 62..40  tokens, in 1/1024ths of a permit (the sign bit stays clear)
+ *   bits 39..0   time of the last update, in milliseconds since the limiter started
+ *
+ * A state of 0 means a bucket that has never been used, i.e. full. Probing is bounded to
+ * a short window. When the window has no free slot, a slot whose bucket has been idle long
+ * enough to refill completely is reclaimed; failing that, the client falls back to a
+ * tighter bucket shared by all overflowing clients of that policy.
+ */
+@Component
+@ConditionalOnProperty(name = "app.security.rate-limit.engine", havingValue = "packed")
+public class PackedRateLimiter implements RateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(PackedRateLimiter.class);
+
+    private static final int UNIT = 1024;
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long MAX_TOKENS = (1L << (63 - TIME_BITS)) - 1;
+    private static final int MAX_PROBES = 8;
+    private static final long EMPTY = 0L;
+
+    // Index into a policy's state array: the single GLOBAL bucket and the overflow bucket
+    private static final int SINGLE_SLOT = 1;
+    private static final int OVERFLOW_SLOT = 3;
+
+    @Value("${app.security.rate-limit.packed.table-size:1048576}")
+    private int tableSize;
+
+    @Value("${app.security.rate-limit.store.overflow-requests-per-hour:50}")
+    private long overflowRequestsPerHour;
+
+    @Autowired
+    private RateLimitProperties rateLimitProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final long startMillis = System.currentTimeMillis();
+
+    private final Map<RateLimitEndpoint, PolicyTable[]> tablesByEndpoint = new EnumMap<>(RateLimitEndpoint.class);
+    private final Map<RateLimitEndpoint, long[]> costsByEndpoint = new EnumMap<>(RateLimitEndpoint.class);
+
+    // State index charged per policy during the current call, for the all-or-nothing refund
+    private ThreadLocal<int[]> charged;
+
+    private final LongAdder reclaimed = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        int slots = Integer.highestOneBit(Math.max(MAX_PROBES, tableSize - 1)) << 1;
+        Limits overflowLimits = new Limits(overflowRequestsPerHour, overflowRequestsPerHour, Duration.ofHours(1));
+
+        int mostPolicies = 0;
+        Map<String, PolicyTable> tables = new HashMap<>();
+        for (RateLimitPolicy policy : rateLimitProperties.getPolicies().values()) {
+            tables.put(policy.getName(), new PolicyTable(policy, slots, overflowLimits));
+        }
+        for (RateLimitEndpoint endpoint : RateLimitEndpoint.values()) {
+            RateLimitPolicy[] policies = rateLimitProperties.policiesFor(endpoint);
+            PolicyTable[] matching = new PolicyTable[policies.length];
+            long[] costs = new long[policies.length];
+            for (int i = 0; i < policies.length; i++) {
+                matching[i] = tables.get(policies[i].getName());
+                costs[i] = (long) policies[i].costOf(endpoint) * UNIT;
+            }
+            tablesByEndpoint.put(endpoint, matching);
+            costsByEndpoint.put(endpoint, costs);
+            mostPolicies = Math.max(mostPolicies, matching.length);
+        }
+        int chargedSize = mostPolicies;
+        charged = ThreadLocal.withInitial(() -> new int[chargedSize]);
+
+        FunctionCounter.builder("auth.rate_limit.packed.reclaimed", reclaimed, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("auth.rate_limit.packed.overflow", overflowed, LongAdder::sum).register(meterRegistry);
+        logger.info("Packed rate limiter: {} policies, {} slots per keyed policy ({} KB each)",
+                tables.size(), slots, (long) slots * 16 / 1024);
+    }
+
+    @Override
+    public long tryConsume(RateLimitEndpoint endpoint, String address, String email) {
+        PolicyTable[] tables = tablesByEndpoint.get(endpoint);
+        long[] costs = costsByEndpoint.get(endpoint);
+        int[] chargedIndex = charged.get();
+        // +1 keeps a freshly written state from ever being 0, which means "never used"
+        long now = System.currentTimeMillis() - startMillis + 1;
+
+        for (int i = 0; i < tables.length; i++) {
+            PolicyTable table = tables[i];
+            chargedIndex[i] = -1;
+
+            // Skip the policies keyed by something the caller didn't supply
+            if (table.dimension.isKeyedByAddress() ? address == null : email == null) {
+                continue;
+            }
+            long key;
+            switch (table.dimension) {
+                case IP:
+                    key = PackedAddress.fingerprint(address);
+                    break;
+                case SUBNET:
+                    key = PackedAddress.subnetFingerprint(address);
+                    break;
+                case GLOBAL:
+                    key = EMPTY;
+                    break;
+                default:
+                    key = hashIgnoreCase(email);
+            }
+
+            int index = table.resolve(key, now);
+            long nanosToWait = take(table.states, index, now, costs[i], table.limitsFor(index));
+            if (nanosToWait > 0) {
+                // All or nothing: give back what the policies before this one were charged
+                for (int j = 0; j < i; j++) {
+                    if (chargedIndex[j] >= 0) {
+                        give(tables[j].states, chargedIndex[j], now, costs[j], tables[j].limitsFor(chargedIndex[j]));
+                    }
+                }
+                return nanosToWait;
+            }
+            chargedIndex[i] = index;
+        }
+        return 0;
+    }
+
+    private static long hashIgnoreCase(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= Character.toLowerCase(value.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        return PackedAddress.fingerprint(h, 0L);
+    }
+
+    private static final class Limits {
+        final long capacityUnits;
+        final long refillUnits;
+        final long periodMs;
+        final long fullRefillMs;
+
+        Limits(long capacity, long refillTokens, Duration refillPeriod) {
+            if (capacity * UNIT > MAX_TOKENS) {
+                throw new IllegalStateException("Rate limit capacity " + capacity + " too large for packed state");
+            }
+            this.capacityUnits = capacity * UNIT;
+            this.refillUnits = refillTokens * UNIT;
+            this.periodMs = refillPeriod.toMillis();
+            this.fullRefillMs = (periodMs * capacity + refillTokens - 1) / refillTokens;
+        }
+    }
+
+    /**
+     * States of one policy. Pairs 0 and 1 hold the single GLOBAL bucket and the overflow
+     * bucket; keyed policies follow with one (key, state) pair per slot.
+     */
+    private final class PolicyTable {
+        final RateLimitDimension dimension;
+        final Limits limits;
+        final Limits overflowLimits;
+        final AtomicLongArray states;
+        final int mask;
+
+        PolicyTable(RateLimitPolicy policy, int slots, Limits overflowLimits) {
+            this.dimension = policy.getDimension();
+            this.limits = new Limits(policy.getCapacity(), policy.getRefillTokens(), policy.getRefillPeriod());
+            this.overflowLimits = overflowLimits;
+            int keyedSlots = dimension == RateLimitDimension.GLOBAL ? 0 : slots;
+            this.states = new AtomicLongArray((keyedSlots + 2) * 2);
+            this.mask = keyedSlots - 1;
+        }
+
+        Limits limitsFor(int index) {
+            return index == OVERFLOW_SLOT ? overflowLimits : limits;
+        }
+
+        // Index of the state word that holds this key's bucket
+        int resolve(long key, long now) {
+            if (dimension == RateLimitDimension.GLOBAL) {
+                return SINGLE_SLOT;
+            }
+
+            key = key == EMPTY ? 1L : key;
+            int home = (int) (key ^ (key >>> 32)) & mask;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (((home + probe) & mask) + 2) << 1;
+                long current = states.get(slot);
+                if (current == key
+                        || (current == EMPTY && (states.compareAndSet(slot, EMPTY, key) || states.get(slot) == key))) {
+                    return slot + 1;
+                }
+            }
+
+            // Window is full: take over a bucket that has refilled completely, it carries no history
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (((home + probe) & mask) + 2) << 1;
+                long state = states.get(slot + 1);
+                long owner = states.get(slot);
+                if (isIdle(state, now) && states.compareAndSet(slot, owner, key)) {
+                    states.compareAndSet(slot + 1, state, 0L);
+                    reclaimed.increment();
+                    return slot + 1;
+                }
+            }
+
+            overflowed.increment();
+            return OVERFLOW_SLOT;
+        }
+
+        private boolean isIdle(long state, long now) {
+            return state == 0L || now - (state & TIME_MASK) >= limits.fullRefillMs;
+        }
+    }
+
+    /**
+     * Refills the bucket up to now and takes cost units from it.
+     *
+     * @return 0 when paid, otherwise the nanoseconds until it could be
+     */
+    private static long take(AtomicLongArray states, int index, long now, long cost, Limits limits) {
+        while (true) {
+            long state = states.get(index);
+            long tokens = tokensAt(state, now, limits);
+            if (tokens < cost) {
+                long waitMs = ((cost - tokens) * limits.periodMs + limits.refillUnits - 1) / limits.refillUnits;
+                return Math.max(1, TimeUnit.MILLISECONDS.toNanos(waitMs));
+            }
+            if (states.compareAndSet(index, state, pack(tokens - cost, now))) {
+                return 0;
+            }
+        }
+    }
+
+    private static void give(AtomicLongArray states, int index, long now, long cost, Limits limits) {
+        while (true) {
+            long state = states.get(index);
+            long tokens = Math.min(limits.capacityUnits, tokensAt(state, now, limits) + cost);
+            if (states.compareAndSet(index, state, pack(tokens, now))) {
+                return;
+            }
+        }
+    }
+
+    private static long tokensAt(long state, long now, Limits limits) {
+        if (state == 0L) {
+            return limits.capacityUnits;
+        }
+        long elapsed = Math.min(limits.fullRefillMs, Math.max(0, now - (state & TIME_MASK)));
+        return Math.min(limits.capacityUnits, (state >>> TIME_BITS) + elapsed * limits.refillUnits / limits.periodMs);
+    }
+
+    private static long pack(long tokens, long now) {
+        return (tokens << TIME_BITS) | (now & TIME_MASK);
+    }
+}
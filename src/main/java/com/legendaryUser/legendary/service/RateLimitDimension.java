@@ -0,0 +1,23 @@
+package com.legendaryUser.legendary.service;
+
+/**
+ * What a rate-limit policy counts against. Address-based dimensions are enforced in
+ * RateLimitFilter before the request body is read; EMAIL needs the parsed request and is
+ * enforced by AuthService.
+ */
+public enum RateLimitDimension {
+    IP(true),
+    SUBNET(true),
+    GLOBAL(true),
+    EMAIL(false);
+
+    private final boolean keyedByAddress;
+
+    RateLimitDimension(boolean keyedByAddress) {
+        this.keyedByAddress = keyedByAddress;
+    }
+
+    public boolean isKeyedByAddress() {
+        return keyedByAddress;
+    }
+}
@@ -0,0 +1,11 @@
+package com.legendaryUser.legendary.service;
+
+/**
+ * Rate-limited operations, referenced by name from the endpoints map of each policy
+ * under app.security.rate-limit.policies.
+ */
+public enum RateLimitEndpoint {
+    REGISTER,
+    REQUEST_OTP,
+    RESEND_VERIFICATION
+}
@@ -1,36 +1,283 @@
 package com.legendaryUser.legendary.service;
 
+import com.legendaryUser.legendary.config.RateLimitPolicy;
+import com.legendaryUser.legendary.config.RateLimitProperties;
+import com.legendaryUser.legendary.util.PackedAddress;
+import com.legendaryUser.legendary.util.TimingWheelStore;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.EstimationProbe;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class RateLimitService {
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitService.class);
 
-    // Allow 5 requests per hour per IP for OTP generation
-    private static final Bandwidth OTP_LIMIT = Bandwidth.classic(5, Refill.greedy(5, Duration.ofHours(1)));
+    @Value("${app.security.rate-limit.store.max-entries:1000000}")
+    private int maxEntries;
 
-    public Bucket resolveBucket(String ipAddress) {
-        return cache.computeIfAbsent(ipAddress, this::newBucket);
+    @Value("${app.security.rate-limit.store.tick-ms:10000}")
+    private long tickMs;
+
+    // Shared by every key that arrives while a policy's store is full, so it is deliberately tight
+    @Value("${app.security.rate-limit.store.overflow-requests-per-hour:50}")
+    private long overflowRequestsPerHour;
+
+    @Value("${app.security.rate-limit.engine:bucket4j}")
+    private String engine;
+
+    @Value("${app.security.rate-limit.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${app.security.rate-limit.snapshot.path:data/rate-limit.snapshot}")
+    private String snapshotPath;
+
+    @Autowired
+    private RateLimitProperties rateLimitProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Per policy name: a keyed store, or a single bucket for GLOBAL policies
+    private final Map<String, TimingWheelStore<String, Bucket>> stores = new HashMap<>();
+    private final Map<String, Bucket> globalBuckets = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        for (RateLimitPolicy policy : rateLimitProperties.getPolicies().values()) {
+            if (policy.getDimension() == RateLimitDimension.GLOBAL) {
+                globalBuckets.put(policy.getName(), newBucket(policy));
+                continue;
+            }
+
+            Bucket overflow = Bucket.builder()
+                    .addLimit(Bandwidth.classic(overflowRequestsPerHour,
+                            Refill.greedy(overflowRequestsPerHour, Duration.ofHours(1))))
+                    .build();
+            // A bucket left alone until it has refilled completely carries no state, so forgetting it changes nothing
+            TimingWheelStore<String, Bucket> store =
+                    new TimingWheelStore<>(maxEntries, policy.fullRefillMillis(), tickMs, overflow);
+            stores.put(policy.getName(), store);
+
+            Gauge.builder("auth.rate_limit.buckets", store, TimingWheelStore::size)
+                    .tag("policy", policy.getName()).register(meterRegistry);
+            FunctionCounter.builder("auth.rate_limit.overflow", store, TimingWheelStore::overflowCount)
+                    .tag("policy", policy.getName())
+                    .description("Lookups served by the shared overflow bucket because the store was full")
+                    .register(meterRegistry);
+            FunctionCounter.builder("auth.rate_limit.expired", store, TimingWheelStore::expirationCount)
+                    .tag("policy", policy.getName()).register(meterRegistry);
+        }
+        logger.info("Rate limit policies: {}, maxEntries={}, tickMs={}",
+                rateLimitProperties.getPolicies().keySet(), maxEntries, tickMs);
+
+        // Before the context finishes starting, so no request sees fresh buckets after a restart
+        restoreSnapshot();
+    }
+
+    /**
+     * Evaluates every policy covering the endpoint in one pass: all buckets are checked
+     * first and only charged if every one of them can pay, so a request rejected by one
+     * policy does not drain the others.
+     *
+     * @return 0 when admitted, otherwise nanoseconds until the most restrictive policy admits it
+     */
+    public long tryConsume(RateLimitEndpoint endpoint, String address, String email) {
+        RateLimitPolicy[] policies = rateLimitProperties.policiesFor(endpoint);
+        Bucket[] buckets = new Bucket[policies.length];
+        long now = System.currentTimeMillis();
+        long nanosToWait = 0;
+
+        for (int i = 0; i < policies.length; i++) {
+            RateLimitPolicy policy = policies[i];
+            String key = keyFor(policy, address, email);
+            if (key == null) {
+                continue;
+            }
+            buckets[i] = key.isEmpty()
+                    ? globalBuckets.get(policy.getName())
+                    : stores.get(policy.getName()).get(key, k -> newBucket(policy), now);
+
+            EstimationProbe probe = buckets[i].estimateAbilityToConsume(policy.costOf(endpoint));
+            if (!probe.canBeConsumed()) {
+                nanosToWait = Math.max(nanosToWait, probe.getNanosToWaitForRefill());
+            }
+        }
+        if (nanosToWait > 0) {
+            return nanosToWait;
+        }
+
+        for (int i = 0; i < policies.length; i++) {
+            if (buckets[i] == null) {
+                continue;
+            }
+            ConsumptionProbe probe = buckets[i].tryConsumeAndReturnRemaining(policies[i].costOf(endpoint));
+            if (!probe.isConsumed()) {
+                // Lost a race since the estimate; give back what the earlier policies were charged
+                for (int j = 0; j < i; j++) {
+                    if (buckets[j] != null) {
+                        buckets[j].addTokens(policies[j].costOf(endpoint));
+                    }
+                }
+                return Math.max(1, probe.getNanosToWaitForRefill());
+            }
+        }
+        return 0;
     }
 
-    private Bucket newBucket(String ipAddress) {
+    // null when the policy is keyed by something the caller didn't supply, "" for GLOBAL
+    static String keyFor(RateLimitPolicy policy, String address, String email) {
+        if (policy.getDimension().isKeyedByAddress() ? address == null : email == null) {
+            return null;
+        }
+        switch (policy.getDimension()) {
+            case IP:
+                return address;
+            case SUBNET:
+                return Long.toHexString(PackedAddress.subnetFingerprint(address));
+            case GLOBAL:
+                return "";
+            default:
+                return email.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static Bucket newBucket(RateLimitPolicy policy) {
+        return newBucket(policy, policy.getCapacity());
+    }
+
+    private static Bucket newBucket(RateLimitPolicy policy, long initialTokens) {
         return Bucket.builder()
-                .addLimit(OTP_LIMIT)
+                .addLimit(Bandwidth.classic(policy.getCapacity(),
+                        Refill.greedy(policy.getRefillTokens(), policy.getRefillPeriod()))
+                        .withInitialTokens(initialTokens))
                 .build();
     }
 
-    public void cleanUp() {
-        // Optional: periodically clean up old entries
-        cache.entrySet().removeIf(entry ->
-                entry.getValue().getAvailableTokens() == OTP_LIMIT.getCapacity()
-        );
+    /**
+     * Writes every bucket that is not full to the snapshot file. Full buckets are left out:
+     * a missing bucket starts full, so they carry no state. Synchronized because the
+     * scheduled write and the shutdown write share the same temporary file.
+     */
+    @Scheduled(fixedDelayString = "${app.security.rate-limit.snapshot.interval-ms:30000}",
+            initialDelayString = "${app.security.rate-limit.snapshot.interval-ms:30000}")
+    public synchronized void writeSnapshot() {
+        if (!snapshotting()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Path path = Paths.get(snapshotPath);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (RateLimitSnapshot.Writer writer =
+                         new RateLimitSnapshot.Writer(path, rateLimitProperties.getPolicies().keySet())) {
+                globalBuckets.forEach((name, bucket) -> addIfNotFull(writer, name, "", bucket));
+                stores.forEach((name, store) -> store.forEach((key, bucket) -> addIfNotFull(writer, name, key, bucket)));
+                writer.commit(start);
+                logger.debug("Wrote {} rate limit buckets to {} in {} ms",
+                        writer.entryCount(), path, System.currentTimeMillis() - start);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Failed to write rate limit snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    // Last snapshot on a graceful shutdown, so a rolling deploy loses at most the in-flight requests
+    @PreDestroy
+    void writeFinalSnapshot() {
+        writeSnapshot();
+    }
+
+    private void addIfNotFull(RateLimitSnapshot.Writer writer, String policy, String key, Bucket bucket) {
+        long tokens = bucket.getAvailableTokens();
+        if (tokens < rateLimitProperties.getPolicies().get(policy).getCapacity()) {
+            writer.add(policy, key, tokens);
+        }
     }
-}
 
+    // Only the bucket4j engine keeps its state here; under another engine these buckets are never charged
+    private boolean snapshotting() {
+        return snapshotEnabled && "bucket4j".equals(engine);
+    }
+
+    private void restoreSnapshot() {
+        if (!snapshotting()) {
+            return;
+        }
+        Path path = Paths.get(snapshotPath);
+        RateLimitSnapshot.Snapshot snapshot;
+        try {
+            snapshot = RateLimitSnapshot.read(path);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            logger.warn("Discarding rate limit snapshot {}: {}", path, e.getMessage());
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // Overwritten by the next snapshot anyway
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long elapsed = Math.max(0, now - snapshot.writtenAtMillis);
+        int restored = 0;
+        for (RateLimitSnapshot.Entry entry : snapshot.entries) {
+            RateLimitPolicy policy = rateLimitProperties.getPolicies().get(entry.policy);
+            // Policies removed, or with a changed dimension, since the snapshot was written are skipped
+            if (policy == null || entry.key.isEmpty() != (policy.getDimension() == RateLimitDimension.GLOBAL)
+                    || elapsed >= policy.fullRefillMillis()) {
+                continue;
+            }
+            long refilled = elapsed * policy.getRefillTokens() / policy.getRefillPeriod().toMillis();
+            long tokens = Math.max(0, Math.min(policy.getCapacity(), entry.tokens + refilled));
+            if (tokens >= policy.getCapacity()) {
+                continue;
+            }
+
+            if (entry.key.isEmpty()) {
+                globalBuckets.put(policy.getName(), newBucket(policy, tokens));
+            } else {
+                stores.get(policy.getName()).get(entry.key, k -> newBucket(policy, tokens), now);
+            }
+            restored++;
+        }
+        logger.info("Restored {} of {} rate limit buckets from a snapshot taken {} ms ago",
+                restored, snapshot.entries.size(), elapsed);
+    }
+
+    // Expires idle buckets a slot at a time; replaces the old full-map sweep
+    @Scheduled(fixedDelayString = "${app.security.rate-limit.store.tick-ms:10000}")
+    public void expireIdleBuckets() {
+        long now = System.currentTimeMillis();
+        for (TimingWheelStore<String, Bucket> store : stores.values()) {
+            store.advance(now);
+        }
+    }
+}
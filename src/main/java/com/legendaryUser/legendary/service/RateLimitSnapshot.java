@@ -0,0 +1,239 @@
+package com.legendaryUser.legendary.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of rate-limit bucket state, written through a memory-mapped file so
+ * entries go straight to the page cache instead of through heap buffers.
+ *
+ *   header  magic int, version int, CRC-32 of the body int, body length long,
+ *           written-at millis long, entry count int
+ *   body    policy count short, policy names, then per entry: policy index short,
+ *           key, tokens long
+ *   string  length short, width byte (1 = one byte per char, 2 = two), chars
+ *
+ * A snapshot is written to a temporary file and moved over the previous one only once
+ * complete, so a crash mid-write leaves the last good snapshot in place. A truncated or
+ * corrupted file fails the length or CRC check and is rejected as a whole.
+ */
+final class RateLimitSnapshot {
+
+    private static final int MAGIC = 0x524C5331; // "RLS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final long CHUNK_BYTES = 1L << 20;
+
+    private RateLimitSnapshot() {
+    }
+
+    /** Buckets read back from a snapshot, with the time they were written. */
+    static final class Snapshot {
+        final long writtenAtMillis;
+        final List<Entry> entries;
+
+        Snapshot(long writtenAtMillis, List<Entry> entries) {
+            this.writtenAtMillis = writtenAtMillis;
+            this.entries = entries;
+        }
+    }
+
+    static final class Entry {
+        final String policy;
+        final String key;
+        final long tokens;
+
+        Entry(String policy, String key, long tokens) {
+            this.policy = policy;
+            this.key = key;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Reads and validates a snapshot.
+     *
+     * @return the entries and the time they were written
+     * @throws IOException if the file is unreadable, truncated or corrupt
+     */
+    static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot has invalid size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " rate limit snapshot");
+            }
+            int expectedCrc = buffer.getInt();
+            long bodyLength = buffer.getLong();
+            long writtenAtMillis = buffer.getLong();
+            int entryCount = buffer.getInt();
+            if (bodyLength != size - HEADER_BYTES) {
+                throw new IOException("Snapshot is truncated: expected " + bodyLength + " body bytes, found "
+                        + (size - HEADER_BYTES));
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Snapshot CRC mismatch");
+            }
+
+            try {
+                String[] policies = new String[buffer.getShort()];
+                for (int i = 0; i < policies.length; i++) {
+                    policies[i] = getString(buffer);
+                }
+                List<Entry> entries = new ArrayList<>(entryCount);
+                for (int i = 0; i < entryCount; i++) {
+                    int policy = buffer.getShort();
+                    String key = getString(buffer);
+                    entries.add(new Entry(policies[policy], key, buffer.getLong()));
+                }
+                if (buffer.hasRemaining()) {
+                    throw new IOException("Snapshot has " + buffer.remaining() + " trailing bytes");
+                }
+                return new Snapshot(writtenAtMillis, entries);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Snapshot is malformed", e);
+            }
+        }
+    }
+
+    /**
+     * Streams entries into a new snapshot. Nothing replaces the previous snapshot until
+     * commit(); closing without committing discards the partial file.
+     */
+    static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final Map<String, Integer> policyIndex = new HashMap<>();
+
+        private MappedByteBuffer buffer;
+        private long bufferOffset;
+        private int entryCount;
+        private boolean committed;
+
+        Writer(Path target, Collection<String> policies) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK_BYTES);
+
+            buffer.position(HEADER_BYTES);
+            buffer.putShort((short) policies.size());
+            for (String policy : policies) {
+                policyIndex.put(policy, policyIndex.size());
+                ensure(3 + policy.length() * 2);
+                putString(policy);
+            }
+        }
+
+        // Keys longer than a short can hold are skipped; no real address or email comes close
+        void add(String policy, String key, long tokens) {
+            if (key.length() > Short.MAX_VALUE) {
+                return;
+            }
+            ensure(2 + 3 + key.length() * 2 + 8);
+            buffer.putShort(policyIndex.get(policy).shortValue());
+            putString(key);
+            buffer.putLong(tokens);
+            entryCount++;
+        }
+
+        void commit(long writtenAtMillis) throws IOException {
+            long length = bufferOffset + buffer.position();
+            buffer.force();
+            channel.truncate(length);
+
+            MappedByteBuffer whole = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            CRC32 crc = new CRC32();
+            crc.update(whole.slice(HEADER_BYTES, (int) (length - HEADER_BYTES)));
+            whole.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(8, (int) crc.getValue())
+                    .putLong(12, length - HEADER_BYTES)
+                    .putLong(20, writtenAtMillis)
+                    .putInt(28, entryCount);
+            whole.force();
+            channel.close();
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        int entryCount() {
+            return entryCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        // Maps the next region of the file once the current one can't take another record
+        private void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            bufferOffset += buffer.position();
+            buffer.force();
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, bufferOffset, Math.max(CHUNK_BYTES, bytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void putString(String value) {
+            boolean narrow = true;
+            for (int i = 0; i < value.length() && narrow; i++) {
+                narrow = value.charAt(i) < 256;
+            }
+            buffer.putShort((short) value.length());
+            buffer.put((byte) (narrow ? 1 : 2));
+            for (int i = 0; i < value.length(); i++) {
+                if (narrow) {
+                    buffer.put((byte) value.charAt(i));
+                } else {
+                    buffer.putChar(value.charAt(i));
+                }
+            }
+        }
+    }
+
+    private static String getString(MappedByteBuffer buffer) throws IOException {
+        int length = buffer.getShort();
+        int width = buffer.get();
+        if (length < 0 || (width != 1 && width != 2)) {
+            throw new IOException("Snapshot has a malformed string");
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = width == 1 ? (char) (buffer.get() & 0xFF) : buffer.getChar();
+        }
+        return new String(chars);
+    }
+}
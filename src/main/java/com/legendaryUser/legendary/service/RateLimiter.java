@@ -0,0 +1,18 @@
+package com.legendaryUser.legendary.service;
+
+/**
+ * Per-client rate limiting engine, selected with app.security.rate-limit.engine
+ * (bucket4j or packed). Limits come from the policies in RateLimitProperties.
+ */
+public interface RateLimiter {
+
+    /**
+     * Charges every policy that covers the endpoint, all or nothing. Pass the client
+     * address to evaluate the IP, SUBNET and GLOBAL policies, the email to evaluate the
+     * EMAIL policies; a null argument skips the policies keyed by it.
+     *
+     * @return 0 if every policy admitted the request, otherwise the nanoseconds until the
+     *         most restrictive one will
+     */
+    long tryConsume(RateLimitEndpoint endpoint, String address, String email);
+}
@@ -0,0 +1,89 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.exception.InvalidTokenException;
+import com.legendaryUser.legendary.exception.TokenExpiredException;
+import com.legendaryUser.legendary.model.RefreshToken;
+import com.legendaryUser.legendary.model.User;
+import com.legendaryUser.legendary.repository.RefreshTokenRepository;
+import com.legendaryUser.legendary.security.TokenGenerator;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    @Value("${app.jwt.refresh.expiration-ms:2592000000}")
+    private long refreshExpirationMs;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TokenGenerator tokenGenerator;
+
+    // Starts a new family when familyId is null
+    public String issue(User user, String familyId) {
+        String rawToken = tokenGenerator.urlSafeToken(32);
+
+        RefreshToken refreshToken = new RefreshToken(
+                hash(rawToken),
+                familyId != null ? familyId : tokenGenerator.urlSafeToken(18),
+                user,
+                LocalDateTime.now().plus(refreshExpirationMs, ChronoUnit.MILLIS));
+        refreshTokenRepository.save(refreshToken);
+        return rawToken;
+    }
+
+    /**
+     * Spends a refresh token so the caller can issue its successor in the same family.
+     * Presenting a token that was already spent means it leaked, so the whole family is revoked.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public RefreshToken consume(String rawToken) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHashWithUser(hash(rawToken))
+                .orElseThrow(() -> new InvalidTokenException("Invalid refresh token"));
+
+        if (refreshToken.isRevoked()) {
+            throw new InvalidTokenException("Refresh token has been revoked");
+        }
+
+        if (refreshToken.isExpired()) {
+            throw new TokenExpiredException("Refresh token has expired");
+        }
+
+        if (refreshToken.isUsed() || refreshTokenRepository.markAsUsed(refreshToken.getId()) == 0) {
+            int revoked = refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            logger.warn("Refresh token reuse detected for user {}, revoked {} tokens in family {}",
+                    refreshToken.getUser().getEmail(), revoked, refreshToken.getFamilyId());
+            throw new InvalidTokenException("Refresh token reuse detected");
+        }
+
+        return refreshToken;
+    }
+
+    public void revokeFamilyOf(String rawToken) {
+        refreshTokenRepository.findByTokenHashWithUser(hash(rawToken))
+                .ifPresent(refreshToken -> refreshTokenRepository.revokeFamily(refreshToken.getFamilyId()));
+    }
+
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId);
+    }
+
+    public void deleteAllExpiredSince(LocalDateTime now) {
+        refreshTokenRepository.deleteAllExpiredSince(now);
+    }
+
+    private static String hash(String rawToken) {
+        return DigestUtils.sha256Hex(rawToken);
+    }
+}
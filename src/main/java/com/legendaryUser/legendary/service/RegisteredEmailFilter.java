@@ -0,0 +1,138 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.repository.UserRepository;
+import com.legendaryUser.legendary.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Bloom filter over every registered email, used to skip the existsByEmail round trip
+ * for addresses that are definitely new. It is only an optimisation: a missed insert
+ * or a stale filter just means the duplicate is caught by the users.email unique
+ * constraint instead of the pre-check.
+ */
+@Component
+public class RegisteredEmailFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredEmailFilter.class);
+
+    private static final int PAGE_SIZE = 10_000;
+
+    @Value("${app.security.email-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.email-filter.expected-entries:1000000}")
+    private long expectedEntries;
+
+    @Value("${app.security.email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile BloomFilter filter;
+    // Receives inserts made while a rebuild is loading, so they survive the swap
+    private volatile BloomFilter building;
+    private volatile boolean ready;
+
+    private Counter skipped;
+    private Counter checked;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        skipped = Counter.builder("auth.registration.email_filter")
+                .tag("result", "absent")
+                .description("Registrations that skipped the duplicate-email query")
+                .register(meterRegistry);
+        checked = Counter.builder("auth.registration.email_filter")
+                .tag("result", "maybe_present")
+                .register(meterRegistry);
+        Gauge.builder("auth.registration.email_filter.bytes", this,
+                f -> f.filter != null ? f.filter.sizeInBytes() : 0).register(meterRegistry);
+
+        rebuild();
+    }
+
+    /**
+     * True only when the email is certainly not registered. Before the first load
+     * completes, and when the filter is disabled, every email is treated as possibly present.
+     */
+    public boolean definitelyAbsent(String email) {
+        if (!ready) {
+            return false;
+        }
+        if (filter.mightContain(email)) {
+            checked.increment();
+            return false;
+        }
+        skipped.increment();
+        return true;
+    }
+
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(email);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(email);
+        }
+    }
+
+    // Rebuilt periodically so the filter is resized as the table grows
+    @Scheduled(fixedDelayString = "${app.security.email-filter.rebuild-interval-ms:21600000}",
+            initialDelayString = "${app.security.email-filter.rebuild-interval-ms:21600000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            long count = userRepository.count();
+            BloomFilter next = new BloomFilter(Math.max(expectedEntries, count * 2), falsePositiveRate);
+            building = next;
+
+            long loaded = 0;
+            Long afterId = 0L;
+            List<Object[]> page;
+            do {
+                page = userRepository.findEmailsAfter(afterId, Limit.of(PAGE_SIZE));
+                for (Object[] row : page) {
+                    next.put((String) row[1]);
+                    afterId = (Long) row[0];
+                }
+                loaded += page.size();
+            } while (page.size() == PAGE_SIZE);
+
+            filter = next;
+            ready = true;
+            logger.info("Registered email filter loaded {} emails in {} ms ({} KB, k={})",
+                    loaded, (System.nanoTime() - start) / 1_000_000,
+                    next.sizeInBytes() / 1024, next.hashFunctions());
+        } catch (Exception e) {
+            logger.error("Registered email filter rebuild failed: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.legendaryUser.legendary.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Client address as seen by the rate limiter and the auth endpoints. Both must agree,
+ * otherwise a limit enforced in the filter and one enforced in a controller would key
+ * the same client differently.
+ */
+public final class ClientIpResolver {
+
+    private ClientIpResolver() {
+    }
+
+    public static String resolve(HttpServletRequest request) {
+        String ip = request.getHeader("X-Forwarded-For");
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("Proxy-Client-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("WL-Proxy-Client-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getRemoteAddr();
+        }
+        return ip;
+    }
+}
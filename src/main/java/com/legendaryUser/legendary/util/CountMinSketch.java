@@ -0,0 +1,116 @@
+package com.legendaryUser.legendary.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count-min sketch over a sliding window of fixed time slices.
+ *
+ * Each slice is a depth x width table of counters; an event increments one counter per row
+ * in the current slice, and rotate() recycles the oldest slice as the new current one. The
+ * estimate for a key is the minimum over rows of its counters summed across slices, which
+ * never undercounts. Updates are conservative (a row's counter is only raised as far as the
+ * key's new minimum), which keeps rarely seen keys close to their true count.
+ *
+ * With probability 1 - e^-depth the overcount is at most e / width x total events in the
+ * window; errorBound() returns that figure so callers can act on a lower bound.
+ */
+public final class CountMinSketch {
+
+    private final AtomicIntegerArray counters;
+    private final AtomicLongArray totals;
+    private final int width;
+    private final int depth;
+    private final int slices;
+
+    private volatile int current;
+
+    public CountMinSketch(int width, int depth, int slices) {
+        if (width <= 0 || depth <= 0 || slices <= 0) {
+            throw new IllegalArgumentException("width, depth and slices must be positive");
+        }
+        if ((long) width * depth * slices > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Count-min sketch too large");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.slices = slices;
+        this.counters = new AtomicIntegerArray(width * depth * slices);
+        this.totals = new AtomicLongArray(slices);
+    }
+
+    /**
+     * Counts one event for the key.
+     *
+     * @return the key's estimated count over the window, including this event
+     */
+    public long add(long hash) {
+        int slice = current;
+        int base = slice * depth * width;
+        totals.incrementAndGet(slice);
+
+        int sliceMinimum = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            sliceMinimum = Math.min(sliceMinimum, counters.get(base + row * width + column(hash, row)));
+        }
+        int target = sliceMinimum + 1;
+        for (int row = 0; row < depth; row++) {
+            int index = base + row * width + column(hash, row);
+            int value;
+            do {
+                value = counters.get(index);
+            } while (value < target && !counters.compareAndSet(index, value, target));
+        }
+        return estimate(hash);
+    }
+
+    public long estimate(long hash) {
+        long minimum = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int column = column(hash, row);
+            long sum = 0;
+            for (int slice = 0; slice < slices; slice++) {
+                sum += counters.get((slice * depth + row) * width + column);
+            }
+            minimum = Math.min(minimum, sum);
+        }
+        return minimum;
+    }
+
+    // Overcount that estimate() stays within with probability 1 - e^-depth
+    public long errorBound() {
+        return (long) Math.ceil(Math.E / width * totalEvents());
+    }
+
+    public long totalEvents() {
+        long total = 0;
+        for (int slice = 0; slice < slices; slice++) {
+            total += totals.get(slice);
+        }
+        return total;
+    }
+
+    /**
+     * Drops the oldest slice and starts counting into it. Meant to be called from a single
+     * scheduler thread every window / slices; an event racing with the reset may be lost.
+     */
+    public void rotate() {
+        int next = (current + 1) % slices;
+        int base = next * depth * width;
+        for (int i = 0; i < depth * width; i++) {
+            counters.set(base + i, 0);
+        }
+        totals.set(next, 0);
+        current = next;
+    }
+
+    public long sizeInBytes() {
+        return (long) counters.length() * Integer.BYTES + (long) slices * Long.BYTES;
+    }
+
+    private int column(long hash, int row) {
+        // Double hashing: row i uses h1 + i * h2, as in BloomFilter
+        long h = hash + row * ((hash >>> 32) | 1L);
+        return (int) ((h & Long.MAX_VALUE) % width);
+    }
+}
@@ -0,0 +1,166 @@
+package com.legendaryUser.legendary.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to latency, after the gradient algorithm from Netflix's
+ * concurrency-limits library.
+ *
+ * The baseline is the lowest latency seen over the last baseline-window requests, i.e. the
+ * latency of a request that didn't queue. The gradient is baseline x tolerance divided by a
+ * short moving average of current latency, clamped to [0.5, 1]. While requests run at close
+ * to baseline the gradient is 1 and the limit grows by a queue allowance of sqrt(limit);
+ * once they start waiting (on the connection pool, on SMTP) latency rises above the
+ * baseline and the limit shrinks in proportion, before threads pile up. The baseline is
+ * re-taken every window from requests that started while at most half the limit (or the
+ * minimum) was in use, so a lasting change in service time becomes the new normal without
+ * sustained queueing being mistaken for it. The limit only grows while at least half of it
+ * is in use, so an idle node doesn't drift to the maximum.
+ *
+ * Callers whose requests differ in service time report them under separate latency classes.
+ * Each class keeps its own baseline and moving average, and a sample is only compared with
+ * its own class: otherwise a fast read would set the baseline and every slow request (a
+ * registration waiting on bcrypt) would look like queueing and pin the limit at the minimum.
+ */
+public final class GradientConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final double shortAlpha;
+    private final int baselineWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this
+    private final Latency[] latencies;
+
+    // Latency statistics of one class of requests
+    private static final class Latency {
+        double shortRttNanos;
+        long baselineRttNanos;
+        long windowMinRttNanos = Long.MAX_VALUE;
+        int windowSamples;
+    }
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit,
+                                    double smoothing, double tolerance, int shortWindow, int baselineWindow) {
+        this(initialLimit, minLimit, maxLimit, smoothing, tolerance, shortWindow, baselineWindow, 1);
+    }
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                                    double tolerance, int shortWindow, int baselineWindow, int latencyClasses) {
+        if (minLimit <= 0 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 0 < min <= initial <= max");
+        }
+        if (smoothing <= 0 || smoothing > 1 || tolerance < 1 || shortWindow <= 0 || baselineWindow <= shortWindow) {
+            throw new IllegalArgumentException("Invalid smoothing, tolerance or window sizes");
+        }
+        if (latencyClasses <= 0) {
+            throw new IllegalArgumentException("latencyClasses must be positive");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.shortAlpha = 2.0 / (shortWindow + 1);
+        this.baselineWindow = baselineWindow;
+        this.latencies = new Latency[latencyClasses];
+        for (int i = 0; i < latencyClasses; i++) {
+            latencies[i] = new Latency();
+        }
+    }
+
+    /**
+     * Admits a request if fewer than share x limit requests are in flight. Lower shares are
+     * turned away first as the limit shrinks.
+     *
+     * @return the number in flight including this request, or -1 if it was rejected
+     */
+    public int tryAcquire(double share) {
+        return tryAcquire(share, 0);
+    }
+
+    /**
+     * As tryAcquire(share), with exempt of the requests in flight not counted against this
+     * one: lower-share requests admitted under a larger limit than the current one, which
+     * would otherwise hold it out until they drain.
+     */
+    public int tryAcquire(double share, int exempt) {
+        int allowed = Math.max(1, (int) (limit * share)) + exempt;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Ends a request admitted by tryAcquire and feeds its latency into the limit.
+     *
+     * @param inFlightAtStart the value tryAcquire returned
+     */
+    public void release(long rttNanos, int inFlightAtStart) {
+        release(rttNanos, inFlightAtStart, 0);
+    }
+
+    /**
+     * As release(rttNanos, inFlightAtStart), measuring the latency against the given class only.
+     *
+     * @param latencyClass 0 to latencyClasses - 1
+     */
+    public void release(long rttNanos, int inFlightAtStart, int latencyClass) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart, latencies[latencyClass]);
+    }
+
+    /**
+     * Ends a request admitted by tryAcquire without feeding its latency into the limit, for
+     * requests whose latency is governed by something other than the resources being protected.
+     */
+    public void releaseUnmeasured() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart, Latency latency) {
+        double current = limit;
+        // Only requests that started on an at most half-busy node re-take the baseline; a
+        // window of saturated samples would carry the queueing into it and the limit would ratchet up
+        if (inFlightAtStart <= Math.max(minLimit, current / 2)) {
+            latency.windowMinRttNanos = Math.min(latency.windowMinRttNanos, rttNanos);
+            if (++latency.windowSamples >= baselineWindow) {
+                latency.baselineRttNanos = latency.windowMinRttNanos;
+                latency.windowMinRttNanos = Long.MAX_VALUE;
+                latency.windowSamples = 0;
+            }
+        }
+        if (latency.baselineRttNanos == 0 || rttNanos < latency.baselineRttNanos) {
+            latency.baselineRttNanos = Math.max(1, rttNanos);
+        }
+        latency.shortRttNanos = latency.shortRttNanos == 0
+                ? rttNanos : latency.shortRttNanos + shortAlpha * (rttNanos - latency.shortRttNanos);
+
+        if (inFlightAtStart < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0,
+                tolerance * latency.baselineRttNanos / Math.max(1, latency.shortRttNanos)));
+        double target = current * gradient + Math.sqrt(current);
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - smoothing) + target * smoothing));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,126 @@
+package com.legendaryUser.legendary.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Fixed-size, lock-free list of the k keys with the highest counts offered so far, meant
+ * to sit next to a CountMinSketch that supplies the counts. Entries are immutable and
+ * replaced by CAS; a new key evicts the smallest entry only if its count is larger. Keys
+ * below the current minimum are rejected with a single volatile read.
+ */
+public final class HeavyHitters {
+
+    private final AtomicReferenceArray<Entry> slots;
+
+    // Smallest count currently held once all slots are filled; a cheap pre-check for offer()
+    private volatile long floor;
+
+    public HeavyHitters(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(k);
+    }
+
+    public void offer(long hash, String label, long count) {
+        if (count <= floor) {
+            return;
+        }
+
+        int smallest = -1;
+        Entry smallestEntry = null;
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (entry != null && entry.hash == hash) {
+                if (count > entry.count) {
+                    slots.compareAndSet(i, entry, new Entry(hash, entry.label, count));
+                }
+                return;
+            }
+            // An empty slot beats any entry; among entries, the lowest count
+            if (smallest < 0 || (smallestEntry != null && (entry == null || entry.count < smallestEntry.count))) {
+                smallest = i;
+                smallestEntry = entry;
+            }
+        }
+
+        if (smallestEntry == null || count > smallestEntry.count) {
+            // Losing this race only means the key is offered again on its next event
+            slots.compareAndSet(smallest, smallestEntry, new Entry(hash, label, count));
+            updateFloor();
+        }
+    }
+
+    /**
+     * Re-reads every entry's count, e.g. after the sketch window moved on, and drops the
+     * entries whose count fell to zero.
+     */
+    public void refresh(LongUnaryOperator counts) {
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (entry == null) {
+                continue;
+            }
+            long count = counts.applyAsLong(entry.hash);
+            slots.compareAndSet(i, entry, count > 0 ? new Entry(entry.hash, entry.label, count) : null);
+        }
+        updateFloor();
+    }
+
+    // Highest count first; a key that raced into two slots is listed once
+    public List<Entry> snapshot() {
+        Map<Long, Entry> byHash = new HashMap<>();
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (entry != null) {
+                byHash.merge(entry.hash, entry, (a, b) -> a.count >= b.count ? a : b);
+            }
+        }
+        List<Entry> entries = new ArrayList<>(byHash.values());
+        entries.sort(Comparator.comparingLong(Entry::getCount).reversed());
+        return entries;
+    }
+
+    private void updateFloor() {
+        long minimum = Long.MAX_VALUE;
+        for (int i = 0; i < slots.length(); i++) {
+            Entry entry = slots.get(i);
+            if (entry == null) {
+                floor = 0;
+                return;
+            }
+            minimum = Math.min(minimum, entry.count);
+        }
+        floor = minimum;
+    }
+
+    public static final class Entry {
+        private final long hash;
+        private final String label;
+        private final long count;
+
+        Entry(long hash, String label, long count) {
+            this.hash = hash;
+            this.label = label;
+            this.count = count;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
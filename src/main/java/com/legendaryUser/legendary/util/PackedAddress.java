@@ -0,0 +1,206 @@
+package com.legendaryUser.legendary.util;
+
+/**
+ * Allocation-free parsing of textual client addresses into packed numeric form: an IPv4
+ * address into an int, an IPv6 address into two longs. IPv4 is treated as the IPv4-mapped
+ * IPv6 address ::ffff:a.b.c.d, so both spellings of the same client pack identically.
+ */
+public final class PackedAddress {
+
+    private static final long IPV4_MAPPED_PREFIX = 0x0000_FFFF_0000_0000L;
+
+    // groups[0..7] scratch space, [8] high and [9] low half of the last parsed IPv6 address
+    private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[10]);
+
+    private PackedAddress() {
+    }
+
+    /**
+     * 64-bit fingerprint of the first address in a (possibly comma separated, as in
+     * X-Forwarded-For) header value. Anything that is not a valid IPv4 or IPv6 literal
+     * is hashed as text so it still gets a stable, if less meaningful, key.
+     */
+    public static long fingerprint(CharSequence value) {
+        return fingerprint(value, false);
+    }
+
+    /**
+     * Like fingerprint, but for the client's network: the /24 of an IPv4 address or the
+     * /64 of an IPv6 address, the usual unit an abuser can rotate addresses within.
+     */
+    public static long subnetFingerprint(CharSequence value) {
+        return fingerprint(value, true);
+    }
+
+    private static long fingerprint(CharSequence value, boolean subnet) {
+        int from = 0;
+        int to = value.length();
+        for (int i = 0; i < to; i++) {
+            if (value.charAt(i) == ',') {
+                to = i;
+                break;
+            }
+        }
+        while (from < to && value.charAt(from) == ' ') {
+            from++;
+        }
+        while (to > from && value.charAt(to - 1) == ' ') {
+            to--;
+        }
+
+        long ipv4 = parseIpv4(value, from, to);
+        if (ipv4 >= 0) {
+            return fingerprint(0L, IPV4_MAPPED_PREFIX | (subnet ? ipv4 & 0xFFFF_FF00L : ipv4));
+        }
+
+        long[] scratch = SCRATCH.get();
+        if (parseIpv6(value, from, to, scratch)) {
+            long high = scratch[8];
+            long low = scratch[9];
+            if (subnet) {
+                boolean ipv4Mapped = high == 0L && (low & 0xFFFF_FFFF_0000_0000L) == IPV4_MAPPED_PREFIX;
+                low = ipv4Mapped ? low & 0xFFFF_FFFF_FFFF_FF00L : 0L;
+            }
+            return fingerprint(high, low);
+        }
+        return BloomFilter.hash64(value);
+    }
+
+    public static long fingerprint(long high, long low) {
+        return mix(low ^ mix(high + 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Parses a dotted quad between from (inclusive) and to (exclusive).
+     *
+     * @return the address as an unsigned 32-bit value, or -1 if it is not a valid IPv4 literal
+     */
+    public static long parseIpv4(CharSequence s, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && octets < 3) {
+                address = (address << 8) | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (octets != 3 || octet < 0) {
+            return -1;
+        }
+        return (address << 8) | octet;
+    }
+
+    /**
+     * Parses an IPv6 literal (with optional "::" compression, embedded IPv4 tail and
+     * "%zone" suffix) into out[8] (high 64 bits) and out[9] (low 64 bits). out[0..7]
+     * are used as scratch space.
+     */
+    public static boolean parseIpv6(CharSequence s, int from, int to, long[] out) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '%') {
+                to = i;
+                break;
+            }
+        }
+        if (to - from < 2) {
+            return false;
+        }
+
+        int groups = 0;
+        int compressedAt = -1;
+        int i = from;
+        if (s.charAt(i) == ':') {
+            if (s.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressedAt = 0;
+            i += 2;
+        }
+
+        while (i < to) {
+            if (groups == 8) {
+                return false;
+            }
+            int start = i;
+            int value = 0;
+            while (i < to && s.charAt(i) != ':' && s.charAt(i) != '.') {
+                int digit = Character.digit(s.charAt(i), 16);
+                if (digit < 0 || i - start == 4) {
+                    return false;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+            if (i < to && s.charAt(i) == '.') {
+                // Embedded IPv4 tail takes the last two groups
+                long ipv4 = parseIpv4(s, start, to);
+                if (ipv4 < 0 || groups > 6) {
+                    return false;
+                }
+                out[groups++] = ipv4 >>> 16;
+                out[groups++] = ipv4 & 0xFFFF;
+                i = to;
+                break;
+            }
+            if (i == start) {
+                return false;
+            }
+            out[groups++] = value;
+            if (i < to) {
+                i++; // ':'
+                if (i < to && s.charAt(i) == ':') {
+                    if (compressedAt >= 0) {
+                        return false;
+                    }
+                    compressedAt = groups;
+                    i++;
+                } else if (i == to) {
+                    return false;
+                }
+            }
+        }
+
+        if (compressedAt < 0 ? groups != 8 : groups > 7) {
+            return false;
+        }
+
+        long high = 0;
+        long low = 0;
+        int gap = 8 - groups;
+        for (int position = 0, g = 0; position < 8; position++) {
+            long group;
+            if (compressedAt >= 0 && position >= compressedAt && position < compressedAt + gap) {
+                group = 0;
+            } else {
+                group = out[g++];
+            }
+            if (position < 4) {
+                high = (high << 16) | group;
+            } else {
+                low = (low << 16) | group;
+            }
+        }
+        out[8] = high;
+        out[9] = low;
+        return true;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
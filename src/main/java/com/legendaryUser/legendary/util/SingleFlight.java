@@ -0,0 +1,64 @@
+package com.legendaryUser.legendary.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collapses concurrent calls for the same key into one: the first caller runs the action,
+ * callers arriving while it runs wait for it and share its outcome instead of repeating
+ * the work. Nothing is remembered once the action returns, so a later call runs again.
+ * Only calls on this node are coalesced.
+ */
+public final class SingleFlight<K> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the action, or waits up to timeoutMillis for the one already running for the
+     * key. A failure of the running action is rethrown to every caller waiting on it; a
+     * caller that times out returns as if it had succeeded, since the work is still underway.
+     *
+     * @return true if this caller ran the action, false if it joined another caller's
+     */
+    public boolean execute(K key, Runnable action, long timeoutMillis) {
+        CompletableFuture<Void> call = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            await(running, timeoutMillis);
+            return false;
+        }
+
+        try {
+            action.run();
+            call.complete(null);
+            return true;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    private static void await(CompletableFuture<Void> running, long timeoutMillis) {
+        try {
+            running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Still running; its result reaches the caller that started it
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.legendaryUser.legendary.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Size-bounded map whose entries expire after a fixed idle time, with expiry driven by a
+ * hashed timing wheel instead of full scans.
+ *
+ * Every entry sits in the wheel slot of its earliest possible expiry. Reads only stamp the
+ * entry's last-access time; they never move it. Each tick drains the one slot that came due:
+ * entries idle for the whole TTL are removed, the rest are re-filed under the slot of their
+ * new expiry. The cost of expiry is therefore spread evenly over ticks and proportional to
+ * the number of entries that come due, not to the size of the map.
+ *
+ * Once maxEntries is reached new keys are not admitted and get the shared overflow value.
+ */
+public final class TimingWheelStore<K, V> {
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final Queue<Node<K, V>>[] wheel;
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final V overflowValue;
+
+    private final LongAdder overflowCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    // Index of the next tick to process; only touched by advance()
+    private long nextTick = -1;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheelStore(int maxEntries, long ttlMillis, long tickMillis, V overflowValue) {
+        if (maxEntries <= 0 || ttlMillis <= 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("maxEntries, ttlMillis and tickMillis must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.tickMillis = tickMillis;
+        this.overflowValue = overflowValue;
+
+        int slots = (int) Math.min(Integer.MAX_VALUE - 1, ttlMillis / tickMillis + 2);
+        this.wheel = new Queue[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public V get(K key, Function<? super K, ? extends V> factory, long nowMillis) {
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            node.touch(nowMillis, tickMillis);
+            return node.value;
+        }
+
+        if (size.incrementAndGet() > maxEntries) {
+            size.decrementAndGet();
+            overflowCount.increment();
+            return overflowValue;
+        }
+
+        Node<K, V> created = new Node<>(key, factory.apply(key), nowMillis);
+        Node<K, V> existing = map.putIfAbsent(key, created);
+        if (existing != null) {
+            size.decrementAndGet();
+            existing.touch(nowMillis, tickMillis);
+            return existing.value;
+        }
+        schedule(created, nowMillis + ttlMillis, nowMillis / tickMillis);
+        return created.value;
+    }
+
+    // Like get, but never creates an entry
+    public V getIfPresent(K key, long nowMillis) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.touch(nowMillis, tickMillis);
+        return node.value;
+    }
+
+    /**
+     * Processes every tick up to nowMillis. Meant to be called from a single scheduler
+     * thread roughly every tickMillis; a late call catches up, at most one full turn.
+     */
+    public synchronized void advance(long nowMillis) {
+        long currentTick = nowMillis / tickMillis;
+        if (nextTick < 0) {
+            nextTick = Math.max(0, currentTick - wheel.length + 1);
+        } else if (currentTick - nextTick >= wheel.length) {
+            nextTick = currentTick - wheel.length + 1;
+        }
+
+        while (nextTick <= currentTick) {
+            Queue<Node<K, V>> slot = wheel[(int) (nextTick % wheel.length)];
+            for (int pending = slot.size(); pending > 0; pending--) {
+                Node<K, V> node = slot.poll();
+                if (node == null) {
+                    break;
+                }
+                long expiresAt = node.lastAccessMillis + ttlMillis;
+                if (expiresAt <= nowMillis) {
+                    if (map.remove(node.key, node)) {
+                        size.decrementAndGet();
+                        expirationCount.increment();
+                    }
+                } else {
+                    schedule(node, expiresAt, nextTick);
+                }
+            }
+            nextTick++;
+        }
+    }
+
+    // Weakly consistent, like ConcurrentHashMap iteration: entries added or expired meanwhile may be missed
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        map.forEach((key, node) -> action.accept(key, node.value));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public long overflowCount() {
+        return overflowCount.sum();
+    }
+
+    public long expirationCount() {
+        return expirationCount.sum();
+    }
+
+    private void schedule(Node<K, V> node, long expiresAtMillis, long afterTick) {
+        // Never file into the slot being drained, it would only be seen again a full turn later
+        long tick = Math.max(expiresAtMillis / tickMillis, afterTick + 1);
+        wheel[(int) (tick % wheel.length)].add(node);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        volatile long lastAccessMillis;
+
+        Node(K key, V value, long nowMillis) {
+            this.key = key;
+            this.value = value;
+            this.lastAccessMillis = nowMillis;
+        }
+
+        // Skips the volatile write while still within the same tick to keep hot keys cheap
+        void touch(long nowMillis, long tickMillis) {
+            if (nowMillis - lastAccessMillis >= tickMillis) {
+                lastAccessMillis = nowMillis;
+            }
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.legendaryUser.legendary;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles("test")
 class LegendaryApplicationTests {
 	@Test
 	void contextLoads() {
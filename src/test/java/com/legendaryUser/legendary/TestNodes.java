@@ -0,0 +1,46 @@
+package com.legendaryUser.legendary;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Starts application contexts that share one in-memory H2 database, standing in for
+ * several nodes behind a load balancer. The first node creates the schema.
+ */
+public final class TestNodes {
+
+    private TestNodes() {
+    }
+
+    public static ConfigurableApplicationContext start(String database, String nodeId, boolean createSchema,
+                                                       String... properties) {
+        // Passed as command line arguments, which take precedence over application.yml
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=" + (createSchema ? "create" : "none"),
+                "--app.cluster.node-id=" + nodeId));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(LegendaryApplication.class)
+                .profiles("test")
+                .run(args.toArray(new String[0]));
+    }
+
+    /** Polls until the condition holds; false if it still doesn't after timeoutMillis. */
+    public static boolean await(BooleanSupplier condition, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package com.legendaryUser.legendary.controller;
+
+import com.legendaryUser.legendary.model.User;
+import com.legendaryUser.legendary.repository.UserRepository;
+import com.legendaryUser.legendary.security.JwtUtils;
+import com.legendaryUser.legendary.security.UserPrincipal;
+import com.legendaryUser.legendary.service.EmailService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Latency of an authenticated read while registrations flood the hashing pool. A small
+ * connection pool and a single hashing thread make any connection held across the
+ * hashing queue show up as /users/me waiting for a connection. Run with -Dbenchmark=true.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "app.security.password-hashing.pool-size=1",
+        "app.security.password-hashing.bcrypt.strength=10",
+        "app.security.rate-limit.policies.register-ip.capacity=1000000",
+        "app.security.rate-limit.policies.register-ip.refill-tokens=1000000",
+        "app.security.rate-limit.policies.subnet.capacity=1000000",
+        "app.security.rate-limit.policies.subnet.refill-tokens=1000000",
+        "app.security.rate-limit.policies.smtp.capacity=1000000",
+        "app.security.rate-limit.policies.smtp.refill-tokens=1000000",
+        "app.security.rate-limit.policies.password-hashing.capacity=1000000",
+        "app.security.rate-limit.policies.password-hashing.refill-tokens=1000000"
+})
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RegistrationLoadTest {
+
+    private static final int SAMPLES = 200;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    @Test
+    void currentUserLatencyStaysFlatWhileRegistrationsQueueForHashing() throws Exception {
+        User user = new User("reader@example.com", passwordEncoder.encode("correct horse"), "Read", "Er");
+        user.setEnabled(true);
+        user.setRole("USER");
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        user = userRepository.save(user);
+        UserPrincipal principal = UserPrincipal.create(user);
+        String jwt = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        long[] idle = sampleCurrentUser(jwt);
+        assertEquals(0, rejected.get());
+
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        AtomicInteger registrations = new AtomicInteger();
+        AtomicInteger sequence = new AtomicInteger();
+        List<Thread> flood = new ArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            Thread thread = new Thread(() -> {
+                while (flooding.get()) {
+                    int n = sequence.incrementAndGet();
+                    String body = "{\"email\":\"flood" + n + "@example.com\",\"password\":\"correct horse\","
+                            + "\"firstName\":\"Flood\",\"lastName\":\"" + n + "\"}";
+                    try {
+                        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(url("/auth/register"))
+                                        .header("Content-Type", "application/json")
+                                        .header("X-Forwarded-For", "198.51.100." + (n % 250))
+                                        .POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            registrations.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        return;
+                    }
+                }
+            });
+            flood.add(thread);
+            thread.start();
+        }
+        Thread.sleep(2_000);
+        long[] loaded = sampleCurrentUser(jwt);
+        flooding.set(false);
+        for (Thread thread : flood) {
+            thread.join();
+        }
+
+        System.out.printf("/api/users/me idle:  p50 %d ms, p99 %d ms, max %d ms%n",
+                percentile(idle, 50), percentile(idle, 99), idle[idle.length - 1]);
+        System.out.printf("/api/users/me flood: p50 %d ms, p99 %d ms, max %d ms, %d of %d rejected "
+                        + "(%d registrations completed)%n", percentile(loaded, 50), percentile(loaded, 99),
+                loaded[loaded.length - 1], rejected.get(), SAMPLES, registrations.get());
+    }
+
+    private long[] sampleCurrentUser(String jwt) throws Exception {
+        long[] millis = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(url("/api/users/me"))
+                    .header("Authorization", "Bearer " + jwt).GET().build(), HttpResponse.BodyHandlers.discarding());
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+            if (response.statusCode() != 200) {
+                rejected.incrementAndGet();
+            }
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    private URI url(String path) {
+        return URI.create("http://localhost:" + port + "/api" + path);
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
@@ -0,0 +1,106 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.util.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100, 0.1, 1.5, 10, 100,
+            ConcurrencyLimitFilter.latencyClasses());
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limit, meterRegistry);
+
+    private MockFilterChain send(String method, String path, MockHttpServletResponse response) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return chain;
+    }
+
+    // Keeps count registrations in flight while the body runs
+    private void holdingRegistrations(int count, Runnable body) throws Exception {
+        if (count == 0) {
+            body.run();
+            return;
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/register");
+        request.setServletPath("/auth/register");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try {
+                holdingRegistrations(count - 1, body);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private double shed(String priority) {
+        return meterRegistry.get("auth.concurrency.shed").tag("priority", priority).counter().count();
+    }
+
+    @Test
+    void registrationsAreShedBeforeAuthenticatedReads() throws Exception {
+        // Seven of ten slots busy: the whole share registrations may use
+        for (int i = 0; i < 7; i++) {
+            limit.tryAcquire(1.0);
+        }
+
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        assertNull(send("POST", "/auth/register", refused).getRequest());
+        assertEquals(503, refused.getStatus());
+        assertEquals("1", refused.getHeader("Retry-After"));
+        assertEquals(1, shed("sheddable"));
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        assertNotNull(send("GET", "/api/users/me", admitted).getRequest());
+        assertEquals(200, admitted.getStatus());
+        assertEquals(0, shed("critical"));
+        // The read released its slot on the way out
+        assertEquals(7, limit.getInFlight());
+    }
+
+    @Test
+    void everyRefusalIsCountedEvenWhenTheWarningIsSkipped() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire(1.0);
+        }
+        for (int i = 0; i < 50; i++) {
+            send("POST", "/auth/verify-otp", new MockHttpServletResponse());
+        }
+
+        assertEquals(50, shed("critical"));
+    }
+
+    @Test
+    void registrationsAdmittedBeforeTheLimitShrankDoNotHoldOutReads() throws Exception {
+        int[] status = new int[2];
+        holdingRegistrations(7, () -> {
+            // The limit drops to 5 while seven registrations are still running
+            ReflectionTestUtils.setField(limit, "limit", 5.0);
+            try {
+                MockHttpServletResponse read = new MockHttpServletResponse();
+                send("GET", "/api/users/me", read);
+                status[0] = read.getStatus();
+                MockHttpServletResponse register = new MockHttpServletResponse();
+                send("POST", "/auth/register", register);
+                status[1] = register.getStatus();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(200, status[0]);
+        assertEquals(503, status[1]);
+        assertEquals(0, limit.getInFlight());
+    }
+}
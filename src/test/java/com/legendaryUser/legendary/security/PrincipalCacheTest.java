@@ -0,0 +1,61 @@
+package com.legendaryUser.legendary.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PrincipalCacheTest {
+
+    private PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    private static UserPrincipal principal(long securityVersion) {
+        return UserPrincipal.fromClaims(1L, "ada@example.com", "USER", securityVersion);
+    }
+
+    @Test
+    void cachesAPrincipalLoadedWithoutAnInterveningEviction() {
+        long generation = cache.generation();
+        UserPrincipal loaded = principal(0);
+        cache.put(loaded, generation);
+
+        assertSame(loaded, cache.getByEmail("ada@example.com"));
+        assertSame(loaded, cache.getById(1L));
+    }
+
+    @Test
+    void dropsAFillReadBeforeAnEviction() {
+        long generation = cache.generation();
+        UserPrincipal stale = principal(0);
+        // The user is locked and evicted while the stale row is on its way back from the database
+        cache.evict(1L, "ada@example.com");
+        cache.put(stale, generation);
+
+        assertNull(cache.getByEmail("ada@example.com"));
+        assertNull(cache.getById(1L));
+
+        UserPrincipal fresh = principal(1);
+        cache.put(fresh, cache.generation());
+        assertSame(fresh, cache.getByEmail("ada@example.com"));
+    }
+
+    @Test
+    void principalAuthoritiesCannotBeModified() {
+        assertThrows(UnsupportedOperationException.class,
+                () -> principal(0).getAuthorities().clear());
+    }
+}
@@ -0,0 +1,60 @@
+package com.legendaryUser.legendary.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrivateKeyCipherTest {
+
+    private static final byte[] KEY = "pkcs8 bytes of a private key".getBytes(StandardCharsets.UTF_8);
+
+    private final PrivateKeyCipher cipher = new PrivateKeyCipher("key-encryption-secret");
+
+    @Test
+    void roundTripsAndNeverStoresThePlaintext() throws Exception {
+        String stored = cipher.encrypt("kid-1", KEY);
+
+        assertTrue(PrivateKeyCipher.isEncrypted(stored));
+        assertFalse(stored.contains(Base64.getEncoder().encodeToString(KEY)));
+        assertArrayEquals(KEY, cipher.decrypt("kid-1", stored));
+    }
+
+    @Test
+    void usesAFreshIvForEveryEncryption() throws Exception {
+        assertNotEquals(cipher.encrypt("kid-1", KEY), cipher.encrypt("kid-1", KEY));
+    }
+
+    @Test
+    void rejectsAKeyMovedToAnotherKid() throws Exception {
+        String stored = cipher.encrypt("kid-1", KEY);
+
+        assertThrows(GeneralSecurityException.class, () -> cipher.decrypt("kid-2", stored));
+    }
+
+    @Test
+    void rejectsAnotherSecretAndTampering() throws Exception {
+        String stored = cipher.encrypt("kid-1", KEY);
+        byte[] data = Base64.getDecoder().decode(stored.substring(3));
+        data[data.length - 1] ^= 1;
+        String tampered = "v1:" + Base64.getEncoder().encodeToString(data);
+
+        assertThrows(GeneralSecurityException.class, () -> new PrivateKeyCipher("other").decrypt("kid-1", stored));
+        assertThrows(GeneralSecurityException.class, () -> cipher.decrypt("kid-1", tampered));
+    }
+
+    @Test
+    void refusesPlaintextRowsAndABlankSecret() {
+        String plain = Base64.getEncoder().encodeToString(KEY);
+
+        assertThrows(GeneralSecurityException.class, () -> cipher.decrypt("kid-1", plain));
+        assertThrows(IllegalStateException.class, () -> new PrivateKeyCipher(" "));
+    }
+}
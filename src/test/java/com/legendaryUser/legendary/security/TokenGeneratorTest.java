@@ -0,0 +1,120 @@
+package com.legendaryUser.legendary.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenGeneratorTest {
+
+    private static final String BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+    // Chi-square critical values at p = 0.001, so a correct generator fails about once in a thousand runs
+    private static final double CRITICAL_9_DOF = 27.88;
+    private static final double CRITICAL_63_DOF = 103.4;
+
+    private static TokenGenerator generator(String algorithm, int bufferBytes) {
+        TokenGenerator generator = new TokenGenerator();
+        ReflectionTestUtils.setField(generator, "algorithm", algorithm);
+        ReflectionTestUtils.setField(generator, "bufferBytes", bufferBytes);
+        ReflectionTestUtils.invokeMethod(generator, "init");
+        return generator;
+    }
+
+    private static double chiSquare(long[] observed) {
+        long total = 0;
+        for (long count : observed) {
+            total += count;
+        }
+        double expected = (double) total / observed.length;
+        double sum = 0;
+        for (long count : observed) {
+            sum += (count - expected) * (count - expected) / expected;
+        }
+        return sum;
+    }
+
+    @Test
+    void numericCodesHaveTheRequestedLengthAndOnlyDigits() {
+        TokenGenerator generator = generator("DRBG", 16);
+        for (int digits = 1; digits <= 12; digits++) {
+            String code = generator.numericCode(digits);
+            assertEquals(digits, code.length());
+            assertTrue(code.chars().allMatch(Character::isDigit), code);
+        }
+    }
+
+    @Test
+    void digitsAreUniformlyDistributed() {
+        TokenGenerator generator = generator("DRBG", 256);
+        long[] counts = new long[10];
+        for (int i = 0; i < 20_000; i++) {
+            for (char c : generator.numericCode(6).toCharArray()) {
+                counts[c - '0']++;
+            }
+        }
+
+        double chiSquare = chiSquare(counts);
+        assertTrue(chiSquare < CRITICAL_9_DOF, "chi-square " + chiSquare);
+    }
+
+    @Test
+    void tokensDecodeToTheRequestedNumberOfBytes() {
+        TokenGenerator generator = generator("DRBG", 16);
+        for (int bytes = 1; bytes <= 40; bytes++) {
+            String token = generator.urlSafeToken(bytes);
+            assertEquals((bytes * 8 + 5) / 6, token.length());
+            assertEquals(bytes, Base64.getUrlDecoder().decode(token).length);
+        }
+        assertEquals(43, generator.urlSafeToken(32).length());
+    }
+
+    @Test
+    void tokenCharactersAreUniformlyDistributed() {
+        TokenGenerator generator = generator("DRBG", 256);
+        long[] counts = new long[64];
+        // Whole 3-byte groups only: the last character of a partial group carries fewer random bits
+        for (int i = 0; i < 5_000; i++) {
+            for (char c : generator.urlSafeToken(30).toCharArray()) {
+                counts[BASE64URL.indexOf(c)]++;
+            }
+        }
+
+        double chiSquare = chiSquare(counts);
+        assertTrue(chiSquare < CRITICAL_63_DOF, "chi-square " + chiSquare);
+    }
+
+    @Test
+    void threadsDrawIndependentTokens() throws Exception {
+        TokenGenerator generator = generator("DRBG", 64);
+        Set<String> tokens = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    tokens.add(generator.urlSafeToken(16));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4_000, tokens.size());
+    }
+
+    @Test
+    void anUnknownAlgorithmFailsAtStartup() {
+        assertThrows(IllegalStateException.class, () -> generator("NoSuchRandom", 256));
+    }
+}
@@ -0,0 +1,64 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.model.RevokedToken;
+import com.legendaryUser.legendary.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final TokenRevocationService service = new TokenRevocationService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "expectedEntries", 1_000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(service, "lookbackMs", 120_000L);
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", repository);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void loadsOutstandingRevocationsAtStartup() {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(row(1L, "startup")));
+
+        service.load();
+
+        assertTrue(service.isRevoked("startup"));
+        assertFalse(service.isRevoked("other"));
+    }
+
+    // Another node's row with a lower id commits after a higher one was already seen
+    @Test
+    void picksUpRevocationsThatCommitOutOfIdOrder() {
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of());
+        service.load();
+
+        when(repository.findByRevokedAtAfterAndExpiresAtAfter(any(), any())).thenReturn(List.of(row(3L, "later-id")));
+        service.synchronize();
+        when(repository.findByRevokedAtAfterAndExpiresAtAfter(any(), any()))
+                .thenReturn(List.of(row(2L, "earlier-id"), row(3L, "later-id")));
+        service.synchronize();
+
+        assertTrue(service.isRevoked("later-id"));
+        assertTrue(service.isRevoked("earlier-id"));
+    }
+
+    private static RevokedToken row(Long id, String jti) {
+        RevokedToken token = new RevokedToken(jti, 1L, LocalDateTime.now().plusMinutes(15));
+        ReflectionTestUtils.setField(token, "id", id);
+        return token;
+    }
+}
@@ -0,0 +1,64 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.TestNodes;
+import com.legendaryUser.legendary.event.UserSecurityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserChangeLogRelayTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = TestNodes.start("change-log", "a", true, "app.cluster.change-log.poll-interval-ms=100");
+        nodeB = TestNodes.start("change-log", "b", false, "app.cluster.change-log.poll-interval-ms=100");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static double applied(ConfigurableApplicationContext node) {
+        return node.getBean(MeterRegistry.class).get("auth.cluster.change_log.applied").counter().count();
+    }
+
+    @Test
+    void committedChangesOnOneNodeEvictThePrincipalCachedOnAnother() throws InterruptedException {
+        PrincipalCache cacheB = nodeB.getBean(PrincipalCache.class);
+        cacheB.put(UserPrincipal.fromClaims(41L, "rolled@example.com", "USER", 0), cacheB.generation());
+        cacheB.put(UserPrincipal.fromClaims(42L, "ada@example.com", "USER", 0), cacheB.generation());
+        double appliedBefore = applied(nodeB);
+
+        TransactionTemplate transactionA = new TransactionTemplate(nodeA.getBean(PlatformTransactionManager.class));
+        transactionA.executeWithoutResult(status -> {
+            nodeA.publishEvent(new UserSecurityChangedEvent(41L, "rolled@example.com", 1,
+                    UserSecurityChangedEvent.Reason.LOCKED));
+            status.setRollbackOnly();
+        });
+        transactionA.executeWithoutResult(status -> nodeA.publishEvent(new UserSecurityChangedEvent(42L,
+                "ada@example.com", 1, UserSecurityChangedEvent.Reason.LOCKED)));
+
+        assertTrue(TestNodes.await(() -> applied(nodeB) > appliedBefore, 5_000), "node b never applied the change");
+        assertNull(cacheB.getById(42L));
+        assertNull(cacheB.getByEmail("ada@example.com"));
+        // The rolled back change was never logged, so its principal is still cached
+        assertNotNull(cacheB.getById(41L));
+        assertEquals(appliedBefore + 1, applied(nodeB));
+        // A node never replays its own rows
+        assertEquals(0, applied(nodeA));
+    }
+}
@@ -0,0 +1,79 @@
+package com.legendaryUser.legendary.security;
+
+import com.legendaryUser.legendary.exception.InvalidTokenException;
+import com.legendaryUser.legendary.exception.TokenExpiredException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerificationLinkSignerTest {
+
+    private static VerificationLinkSigner signer(String secret, long expirationHours) {
+        TokenGenerator tokenGenerator = new TokenGenerator();
+        ReflectionTestUtils.setField(tokenGenerator, "algorithm", "DRBG");
+        ReflectionTestUtils.setField(tokenGenerator, "bufferBytes", 256);
+        ReflectionTestUtils.invokeMethod(tokenGenerator, "init");
+
+        VerificationLinkSigner signer = new VerificationLinkSigner();
+        ReflectionTestUtils.setField(signer, "secret", secret);
+        ReflectionTestUtils.setField(signer, "expirationHours", expirationHours);
+        ReflectionTestUtils.setField(signer, "tokenGenerator", tokenGenerator);
+        ReflectionTestUtils.invokeMethod(signer, "init");
+        return signer;
+    }
+
+    @Test
+    void verifiesWhatItSigned() {
+        VerificationLinkSigner signer = signer("test-secret", 24);
+        String nonce = signer.newNonce();
+
+        VerificationLinkSigner.Claims claims = signer.verify(signer.sign(42L, nonce));
+
+        assertEquals(42L, claims.getUserId());
+        assertEquals(nonce, claims.getNonce());
+        assertNotEquals(nonce, signer.newNonce());
+    }
+
+    @Test
+    void anotherNodeWithTheSameSecretAcceptsTheLink() {
+        VerificationLinkSigner issuer = signer("shared-secret", 24);
+        String token = issuer.sign(7L, issuer.newNonce());
+
+        assertEquals(7L, signer("shared-secret", 24).verify(token).getUserId());
+        assertThrows(InvalidTokenException.class, () -> signer("other-secret", 24).verify(token));
+    }
+
+    @Test
+    void rejectsATamperedPayload() {
+        VerificationLinkSigner signer = signer("test-secret", 24);
+        String token = signer.sign(42L, signer.newNonce());
+        // Swap a character in the middle of the payload, where every bit is significant
+        int i = token.indexOf('.') / 2;
+        char swapped = token.charAt(i) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, i) + swapped + token.substring(i + 1);
+
+        assertThrows(InvalidTokenException.class, () -> signer.verify(tampered));
+    }
+
+    @Test
+    void rejectsAnExpiredLink() {
+        VerificationLinkSigner signer = signer("test-secret", 0);
+        String token = signer.sign(42L, signer.newNonce());
+
+        assertThrows(TokenExpiredException.class, () -> signer.verify(token));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        VerificationLinkSigner signer = signer("test-secret", 24);
+        String token = signer.sign(42L, signer.newNonce());
+
+        for (String malformed : new String[]{"", "no-separator", ".", "!!!.###",
+                token.substring(0, token.indexOf('.')), token + "A", "AAAA." + token.substring(token.indexOf('.') + 1)}) {
+            assertThrows(InvalidTokenException.class, () -> signer.verify(malformed), malformed);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.exception.InvalidTokenException;
+import com.legendaryUser.legendary.security.JwtUtils;
+import com.legendaryUser.legendary.security.JwtVerificationResult;
+import com.legendaryUser.legendary.security.JwtVerifier;
+import com.legendaryUser.legendary.security.TokenRevocationService;
+import com.legendaryUser.legendary.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private JwtVerifier jwtVerifier;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Test
+    void logoutWithExpiredAccessTokenStillRevokesTheRefreshFamily() {
+        when(jwtVerifier.verify("expired"))
+                .thenReturn(JwtVerificationResult.failure(JwtVerificationResult.FailureReason.EXPIRED));
+
+        authService.logout("expired", "refresh");
+
+        verify(refreshTokenService).revokeFamilyOf("refresh");
+        verify(tokenRevocationService, never()).revoke(any(), any(), any());
+    }
+
+    @Test
+    void logoutWithOnlyARefreshTokenRevokesTheFamily() {
+        authService.logout(null, "refresh");
+
+        verify(refreshTokenService).revokeFamilyOf("refresh");
+        verify(tokenRevocationService, never()).revoke(any(), any(), any());
+    }
+
+    @Test
+    void logoutWithAnInvalidAccessTokenAndNoRefreshTokenIsRejected() {
+        when(jwtVerifier.verify("forged"))
+                .thenReturn(JwtVerificationResult.failure(JwtVerificationResult.FailureReason.INVALID_SIGNATURE));
+
+        assertThrows(InvalidTokenException.class, () -> authService.logout("forged", null));
+        verify(refreshTokenService, never()).revokeFamilyOf(any());
+    }
+
+    @Test
+    void logoutWithAValidAccessTokenRevokesItsJti() {
+        // exp is stored in whole seconds
+        Date expiry = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+        Claims claims = Jwts.claims().setId("jti-1").setSubject("ada@example.com").setExpiration(expiry);
+        claims.put(JwtUtils.CLAIM_USER_ID, 7L);
+        when(jwtVerifier.verify("valid")).thenReturn(JwtVerificationResult.success(claims));
+
+        authService.logout("valid", "refresh");
+
+        verify(refreshTokenService).revokeFamilyOf("refresh");
+        verify(tokenRevocationService).revoke("jti-1", 7L, expiry);
+        verify(verifiedTokenCache).invalidate("valid");
+    }
+}
@@ -0,0 +1,151 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.TestNodes;
+import com.legendaryUser.legendary.model.RateLimitBucket;
+import com.legendaryUser.legendary.repository.RateLimitBucketRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterRateLimiterTest {
+
+    // password-hashing: 200 permits, 10 per registration, leased 50 at a time, no refill during the test
+    private static final String[] PROPERTIES = {
+            "app.security.rate-limit.engine=cluster",
+            "app.security.rate-limit.cluster.lease-ttl-ms=200",
+            "app.security.rate-limit.policies.password-hashing.refill-tokens=1",
+            "app.security.rate-limit.policies.password-hashing.refill-period=1h"
+    };
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = TestNodes.start("rate-limit", "a", true, PROPERTIES);
+        nodeB = TestNodes.start("rate-limit", "b", false, PROPERTIES);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    // Forgets every lease and row, so each test starts from full buckets that neither node has seen
+    @BeforeEach
+    void resetBuckets() {
+        ReflectionTestUtils.invokeMethod(nodeA.getBean(RateLimiter.class), "returnAllLeases");
+        ReflectionTestUtils.invokeMethod(nodeB.getBean(RateLimiter.class), "returnAllLeases");
+        nodeA.getBean(RateLimitBucketRepository.class).deleteAll();
+    }
+
+    @Test
+    void twoNodesTogetherAdmitNoMoreThanTheSharedBudget() throws InterruptedException {
+        RateLimiter limiterA = nodeA.getBean(RateLimiter.class);
+        RateLimiter limiterB = nodeB.getBean(RateLimiter.class);
+        assertInstanceOf(ClusterRateLimiter.class, limiterA);
+
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger sequence = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            RateLimiter limiter = t % 2 == 0 ? limiterA : limiterB;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 10; i++) {
+                    // A fresh address and email each time, so only the global policies bind
+                    int n = sequence.incrementAndGet();
+                    if (limiter.tryConsume(RateLimitEndpoint.REGISTER, "10." + n / 250 + "." + n % 250 + ".1",
+                            "client" + n + "@example.com") == 0) {
+                        admitted.incrementAndGet();
+                    }
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(admitted.get() <= 20, "admitted " + admitted.get());
+
+        // Whatever is still parked in either node's leases expires and goes back to the shared row
+        Thread.sleep(1_000);
+        for (int n = 1_000; n < 1_030; n++) {
+            if (limiterA.tryConsume(RateLimitEndpoint.REGISTER, "10.9." + (n - 1_000) + ".1",
+                    "client" + n + "@example.com") == 0) {
+                admitted.incrementAndGet();
+            }
+        }
+        assertEquals(20, admitted.get());
+    }
+
+    @Test
+    void nodesCreatingTheSameBucketAtOnceBothGetDebited() throws Exception {
+        RateLimiter limiterA = nodeA.getBean(RateLimiter.class);
+        RateLimiter limiterB = nodeB.getBean(RateLimiter.class);
+        RateLimitBucketRepository buckets = nodeA.getBean(RateLimitBucketRepository.class);
+
+        for (int round = 0; round < 20; round++) {
+            // Both nodes find the password-hashing bucket missing
+            resetBuckets();
+
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            AtomicInteger admitted = new AtomicInteger();
+            int first = round * 2;
+            Thread a = new Thread(() -> register(limiterA, barrier, first, admitted));
+            Thread b = new Thread(() -> register(limiterB, barrier, first + 1, admitted));
+            a.start();
+            b.start();
+            a.join();
+            b.join();
+            assertEquals(2, admitted.get(), "round " + round);
+
+            // Both registrations paid 10 of the 200 permits once the leases are back; had one node's
+            // write overwritten the other's debit, the returned leases would refill the row to 200
+            ReflectionTestUtils.invokeMethod(limiterA, "returnAllLeases");
+            ReflectionTestUtils.invokeMethod(limiterB, "returnAllLeases");
+            long milliTokens = buckets.findAll().stream()
+                    .filter(bucket -> bucket.getPolicy().equals("password-hashing"))
+                    .mapToLong(RateLimitBucket::getMilliTokens)
+                    .findFirst().orElseThrow();
+            assertTrue(milliTokens >= 180_000 && milliTokens < 181_000, "round " + round + ": " + milliTokens);
+        }
+    }
+
+    private static void register(RateLimiter limiter, CyclicBarrier barrier, int n, AtomicInteger admitted) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if (limiter.tryConsume(RateLimitEndpoint.REGISTER, "10.8." + n % 250 + ".1", "racer" + n + "@example.com") == 0) {
+            admitted.incrementAndGet();
+        }
+    }
+}
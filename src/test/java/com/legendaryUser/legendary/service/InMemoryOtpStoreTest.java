@@ -0,0 +1,70 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryOtpStoreTest {
+
+    private final User user = new User("Ada@Example.com", "hash", "Ada", "Lovelace");
+    private InMemoryOtpStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryOtpStore();
+        ReflectionTestUtils.setField(store, "expirationMinutes", 10L);
+        ReflectionTestUtils.setField(store, "maxAttempts", 3);
+        ReflectionTestUtils.setField(store, "shardCount", 4);
+        ReflectionTestUtils.setField(store, "maxEntries", 1_000);
+        ReflectionTestUtils.setField(store, "tickMs", 1_000L);
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(store, "init");
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void outsideATransactionTheCodeIsLiveAtOnce() {
+        store.save(user, "123456");
+
+        assertEquals(OtpStore.Result.INVALID, store.verify(user, "654321"));
+        assertEquals(OtpStore.Result.VALID, store.verify(user, "123456"));
+        assertEquals(OtpStore.Result.MISSING, store.verify(user, "123456"));
+    }
+
+    @Test
+    void insideATransactionTheCodeGoesLiveOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        store.save(user, "123456");
+
+        assertEquals(OtpStore.Result.MISSING, store.verify(user, "123456"));
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertEquals(OtpStore.Result.VALID, store.verify(user, "123456"));
+    }
+
+    @Test
+    void aRolledBackSaveLeavesThePreviousCodeInPlace() {
+        store.save(user, "111111");
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.save(user, "222222");
+        // Rolled back: afterCommit never runs
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(OtpStore.Result.INVALID, store.verify(user, "222222"));
+        assertEquals(OtpStore.Result.VALID, store.verify(user, "111111"));
+    }
+}
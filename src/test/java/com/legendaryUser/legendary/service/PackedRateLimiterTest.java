@@ -0,0 +1,109 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.config.RateLimitPolicy;
+import com.legendaryUser.legendary.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static RateLimitPolicy policy(RateLimitDimension dimension, long capacity) {
+        RateLimitPolicy policy = new RateLimitPolicy();
+        policy.setDimension(dimension);
+        policy.setCapacity(capacity);
+        policy.setRefillTokens(capacity);
+        policy.setRefillPeriod(Duration.ofHours(1));
+        policy.getEndpoints().put(RateLimitEndpoint.REGISTER, 1);
+        return policy;
+    }
+
+    private PackedRateLimiter limiter(int tableSize, Map<String, RateLimitPolicy> policies) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(policies);
+        ReflectionTestUtils.invokeMethod(properties, "index");
+
+        PackedRateLimiter limiter = new PackedRateLimiter();
+        ReflectionTestUtils.setField(limiter, "tableSize", tableSize);
+        ReflectionTestUtils.setField(limiter, "overflowRequestsPerHour", 5L);
+        ReflectionTestUtils.setField(limiter, "rateLimitProperties", properties);
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(limiter, "init");
+        return limiter;
+    }
+
+    private static int admitted(RateLimiter limiter, String address, String email, int attempts) {
+        int admitted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (limiter.tryConsume(RateLimitEndpoint.REGISTER, address, email) == 0) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    @Test
+    void eachAddressHasItsOwnBucket() {
+        Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+        policies.put("ip", policy(RateLimitDimension.IP, 3));
+        PackedRateLimiter limiter = limiter(1024, policies);
+
+        assertEquals(3, admitted(limiter, "203.0.113.7", null, 5));
+        assertTrue(limiter.tryConsume(RateLimitEndpoint.REGISTER, "203.0.113.7", null) > 0);
+        // Same client in its IPv4-mapped spelling
+        assertTrue(limiter.tryConsume(RateLimitEndpoint.REGISTER, "::ffff:203.0.113.7", null) > 0);
+        assertEquals(3, admitted(limiter, "203.0.113.8", null, 5));
+    }
+
+    @Test
+    void emailsAreMatchedCaseInsensitively() {
+        Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+        policies.put("email", policy(RateLimitDimension.EMAIL, 1));
+        PackedRateLimiter limiter = limiter(1024, policies);
+
+        assertEquals(0, limiter.tryConsume(RateLimitEndpoint.REGISTER, null, "Ada@Example.com"));
+        assertTrue(limiter.tryConsume(RateLimitEndpoint.REGISTER, null, "ada@example.com") > 0);
+        // Address-keyed callers skip the email policy entirely
+        assertEquals(0, limiter.tryConsume(RateLimitEndpoint.REGISTER, "203.0.113.7", null));
+    }
+
+    @Test
+    void aRejectionRefundsThePoliciesAlreadyCharged() {
+        Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+        policies.put("global", policy(RateLimitDimension.GLOBAL, 5));
+        policies.put("ip", policy(RateLimitDimension.IP, 1));
+        PackedRateLimiter limiter = limiter(1024, policies);
+
+        assertEquals(1, admitted(limiter, "203.0.113.1", null, 10));
+        // Nine rejections by the ip policy left the global budget untouched
+        for (int client = 2; client <= 5; client++) {
+            assertEquals(1, admitted(limiter, "203.0.113." + client, null, 1));
+        }
+        assertEquals(0, admitted(limiter, "203.0.113.6", null, 1));
+    }
+
+    @Test
+    void clientsThatDoNotFitTheTableShareTheOverflowBucket() {
+        Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+        policies.put("ip", policy(RateLimitDimension.IP, 1));
+        PackedRateLimiter limiter = limiter(8, policies);
+
+        int admitted = 0;
+        for (int client = 0; client < 200; client++) {
+            admitted += admitted(limiter, "198.51.100." + client, null, 1);
+        }
+
+        assertTrue(meterRegistry.get("auth.rate_limit.packed.overflow").functionCounter().count() > 0);
+        // At most one permit per table slot (16), plus the shared overflow budget of 5
+        assertTrue(admitted <= 16 + 5, "admitted " + admitted);
+    }
+}
@@ -0,0 +1,124 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.config.RateLimitPolicy;
+import com.legendaryUser.legendary.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitServiceTest {
+
+    private static final int CAPACITY = 20;
+
+    @TempDir
+    Path dir;
+
+    private RateLimitService service(String engine) {
+        RateLimitPolicy policy = new RateLimitPolicy();
+        policy.setDimension(RateLimitDimension.IP);
+        policy.setCapacity(CAPACITY);
+        policy.setRefillTokens(CAPACITY);
+        policy.setRefillPeriod(Duration.ofHours(1));
+        policy.getEndpoints().put(RateLimitEndpoint.REGISTER, 1);
+        Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+        policies.put("ip", policy);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setPolicies(policies);
+        ReflectionTestUtils.invokeMethod(properties, "index");
+
+        RateLimitService service = new RateLimitService();
+        ReflectionTestUtils.setField(service, "maxEntries", 1_000);
+        ReflectionTestUtils.setField(service, "tickMs", 1_000L);
+        ReflectionTestUtils.setField(service, "overflowRequestsPerHour", 5L);
+        ReflectionTestUtils.setField(service, "engine", engine);
+        ReflectionTestUtils.setField(service, "snapshotEnabled", true);
+        ReflectionTestUtils.setField(service, "snapshotPath", dir.resolve("rate-limit.snapshot").toString());
+        ReflectionTestUtils.setField(service, "rateLimitProperties", properties);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    @Test
+    void aRestartMidFloodDoesNotHandOutAFreshBudget() throws Exception {
+        AtomicReference<RateLimitService> current = new AtomicReference<>(service("bucket4j"));
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicBoolean restarted = new AtomicBoolean();
+        CountDownLatch halfway = new CountDownLatch(CAPACITY / 2);
+        CountDownLatch resume = new CountDownLatch(1);
+
+        List<Thread> attackers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    if (halfway.getCount() == 0 && !restarted.get()) {
+                        try {
+                            resume.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                    if (current.get().tryConsume(RateLimitEndpoint.REGISTER, "203.0.113.7", null) == 0) {
+                        admitted.incrementAndGet();
+                        halfway.countDown();
+                    }
+                }
+            });
+            attackers.add(thread);
+            thread.start();
+        }
+
+        halfway.await();
+        // A rolling deploy: the old node writes its final snapshot, the new one restores it
+        RateLimitService old = current.get();
+        Thread.sleep(50);
+        ReflectionTestUtils.invokeMethod(old, "writeFinalSnapshot");
+        current.set(service("bucket4j"));
+        restarted.set(true);
+        resume.countDown();
+        for (Thread thread : attackers) {
+            thread.join();
+        }
+
+        assertEquals(CAPACITY, admitted.get());
+        assertTrue(current.get().tryConsume(RateLimitEndpoint.REGISTER, "203.0.113.7", null) > 0);
+    }
+
+    @Test
+    void otherEnginesNeitherWriteNorRestoreASnapshot() {
+        RateLimitService bucket4j = service("bucket4j");
+        for (int i = 0; i < CAPACITY; i++) {
+            bucket4j.tryConsume(RateLimitEndpoint.REGISTER, "203.0.113.7", null);
+        }
+        bucket4j.writeSnapshot();
+        Path path = dir.resolve("rate-limit.snapshot");
+        assertTrue(Files.exists(path));
+
+        RateLimitService packed = service("packed");
+        // Left untouched by restore, so a later switch back to bucket4j still finds it
+        assertEquals(0, packed.tryConsume(RateLimitEndpoint.REGISTER, "203.0.113.7", null));
+
+        RateLimitService idle = service("cluster");
+        ReflectionTestUtils.setField(idle, "snapshotPath", dir.resolve("other.snapshot").toString());
+        idle.writeSnapshot();
+        assertFalse(Files.exists(dir.resolve("other.snapshot")));
+    }
+}
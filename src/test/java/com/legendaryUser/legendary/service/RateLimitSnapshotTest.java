@@ -0,0 +1,95 @@
+package com.legendaryUser.legendary.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimitSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String... keys) throws IOException {
+        Path path = dir.resolve("rate-limit.snapshot");
+        try (RateLimitSnapshot.Writer writer = new RateLimitSnapshot.Writer(path, List.of("ip", "email"))) {
+            for (int i = 0; i < keys.length; i++) {
+                writer.add(i % 2 == 0 ? "ip" : "email", keys[i], i);
+            }
+            writer.commit(1_700_000_000_000L);
+        }
+        return path;
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        Path path = write("203.0.113.7", "ada@example.com", "2001:db8::1", "zoë@example.com");
+
+        RateLimitSnapshot.Snapshot snapshot = RateLimitSnapshot.read(path);
+
+        assertEquals(1_700_000_000_000L, snapshot.writtenAtMillis);
+        assertEquals(4, snapshot.entries.size());
+        assertEquals("ip", snapshot.entries.get(0).policy);
+        assertEquals("203.0.113.7", snapshot.entries.get(0).key);
+        assertEquals("email", snapshot.entries.get(3).policy);
+        // Wide characters survive the two-byte encoding
+        assertEquals("zoë@example.com", snapshot.entries.get(3).key);
+        assertEquals(3, snapshot.entries.get(3).tokens);
+        assertFalse(Files.exists(dir.resolve("rate-limit.snapshot.tmp")));
+    }
+
+    @Test
+    void spansMoreThanOneMappedChunk() throws IOException {
+        String[] keys = new String[60_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "client-" + i + "@example.com";
+        }
+        Path path = write(keys);
+
+        assertEquals(keys.length, RateLimitSnapshot.read(path).entries.size());
+        assertEquals(keys[keys.length - 1], RateLimitSnapshot.read(path).entries.get(keys.length - 1).key);
+    }
+
+    @Test
+    void rejectsATruncatedFile() throws IOException {
+        Path path = write("203.0.113.7", "ada@example.com");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertThrows(IOException.class, () -> RateLimitSnapshot.read(path));
+    }
+
+    @Test
+    void rejectsACorruptedBody() throws IOException {
+        Path path = write("203.0.113.7", "ada@example.com");
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class, () -> RateLimitSnapshot.read(path));
+    }
+
+    @Test
+    void anUncommittedWriterLeavesThePreviousSnapshotInPlace() throws IOException {
+        Path path = write("203.0.113.7");
+        byte[] before = Files.readAllBytes(path);
+
+        try (RateLimitSnapshot.Writer writer = new RateLimitSnapshot.Writer(path, List.of("ip"))) {
+            writer.add("ip", "198.51.100.1", 0);
+        }
+
+        assertArrayEquals(before, Files.readAllBytes(path));
+        assertFalse(Files.exists(dir.resolve("rate-limit.snapshot.tmp")));
+    }
+}
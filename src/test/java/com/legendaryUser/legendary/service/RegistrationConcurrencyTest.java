@@ -0,0 +1,82 @@
+package com.legendaryUser.legendary.service;
+
+import com.legendaryUser.legendary.dto.RegisterRequest;
+import com.legendaryUser.legendary.exception.EmailAlreadyExistsException;
+import com.legendaryUser.legendary.model.User;
+import com.legendaryUser.legendary.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.security.rate-limit.policies.email.capacity=100")
+@ActiveProfiles("test")
+class RegistrationConcurrencyTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Test
+    void concurrentRegistrationsOfANewEmailCreateExactlyOneUser() throws InterruptedException {
+        String email = "race@example.com";
+        // The filter has never seen the email, so every racer skips the existsByEmail pre-check
+        assertTrue(registeredEmailFilter.definitelyAbsent(email));
+
+        int racers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        List<Throwable> unexpected = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < racers; i++) {
+            int racer = i;
+            Thread thread = new Thread(() -> {
+                RegisterRequest request = new RegisterRequest();
+                request.setEmail(email);
+                request.setPassword("correct horse " + racer);
+                request.setFirstName("Racer");
+                request.setLastName(String.valueOf(racer));
+                try {
+                    start.await();
+                    authService.registerUser(request, "203.0.113." + racer);
+                    registered.incrementAndGet();
+                } catch (EmailAlreadyExistsException e) {
+                    duplicates.incrementAndGet();
+                } catch (Throwable e) {
+                    synchronized (unexpected) {
+                        unexpected.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), unexpected);
+        assertEquals(1, registered.get());
+        assertEquals(racers - 1, duplicates.get());
+        assertEquals(1, userRepository.findAll().stream().map(User::getEmail).filter(email::equals).count());
+    }
+}
@@ -0,0 +1,79 @@
+package com.legendaryUser.legendary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    @Test
+    void countsAFewKeysExactly() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4, 1);
+        for (int i = 0; i < 7; i++) {
+            sketch.add(BloomFilter.hash64("ada@example.com"));
+        }
+        long last = sketch.add(BloomFilter.hash64("bob@example.com"));
+
+        assertEquals(7, sketch.estimate(BloomFilter.hash64("ada@example.com")));
+        assertEquals(1, last);
+        assertEquals(0, sketch.estimate(BloomFilter.hash64("eve@example.com")));
+        assertEquals(8, sketch.totalEvents());
+    }
+
+    @Test
+    void neverUndercountsAndMostlyStaysWithinTheErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(512, 4, 1);
+        Map<Long, Integer> actual = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            // Skewed: a few keys take most of the events
+            long key = BloomFilter.hash64("key" + (int) Math.pow(random.nextInt(10_000), 2) / 10_000);
+            actual.merge(key, 1, Integer::sum);
+            sketch.add(key);
+        }
+
+        long bound = sketch.errorBound();
+        int outside = 0;
+        for (Map.Entry<Long, Integer> entry : actual.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "undercount for " + entry.getKey());
+            if (estimate - entry.getValue() > bound) {
+                outside++;
+            }
+        }
+        // The bound holds per key with probability 1 - e^-4, about 98%
+        assertTrue(outside <= actual.size() * 0.05, outside + " of " + actual.size() + " keys beyond the bound");
+    }
+
+    @Test
+    void rotationForgetsTheOldestSlice() {
+        CountMinSketch sketch = new CountMinSketch(256, 3, 3);
+        long key = BloomFilter.hash64("203.0.113.0/24");
+        for (int i = 0; i < 5; i++) {
+            sketch.add(key);
+        }
+        sketch.rotate();
+        sketch.add(key);
+        assertEquals(6, sketch.estimate(key));
+
+        sketch.rotate();
+        assertEquals(6, sketch.estimate(key));
+        sketch.rotate();
+        assertEquals(1, sketch.estimate(key));
+        sketch.rotate();
+        assertEquals(0, sketch.estimate(key));
+        assertEquals(0, sketch.totalEvents());
+    }
+
+    @Test
+    void rejectsInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 4, 1));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(1 << 20, 1 << 8, 1 << 4));
+    }
+}
@@ -0,0 +1,97 @@
+package com.legendaryUser.legendary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringLruCacheTest {
+
+    @Test
+    void returnsLiveEntriesAndCountsHitsAndMisses() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, 1);
+        cache.put("a", "A", 1_000);
+
+        assertEquals("A", cache.get("a", 999));
+        assertNull(cache.get("b", 999));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void dropsEntriesOnceTheyExpire() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, 1);
+        cache.put("a", "A", 1_000);
+
+        assertNull(cache.get("a", 1_000));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.expirationCount());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryWhenFull() {
+        ExpiringLruCache<Integer, String> cache = new ExpiringLruCache<>(2, 1);
+        cache.put(1, "one", Long.MAX_VALUE);
+        cache.put(2, "two", Long.MAX_VALUE);
+        cache.get(1, 0);
+        cache.put(3, "three", Long.MAX_VALUE);
+
+        assertEquals("one", cache.get(1, 0));
+        assertNull(cache.get(2, 0));
+        assertEquals("three", cache.get(3, 0));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void removeIfVisitsEverySegment() {
+        ExpiringLruCache<Integer, Integer> cache = new ExpiringLruCache<>(1_000, 16);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i, Long.MAX_VALUE);
+        }
+
+        assertEquals(50, cache.removeIf(v -> v % 2 == 0));
+        assertEquals(50, cache.size());
+        assertNull(cache.get(10, 0));
+        assertEquals(Integer.valueOf(11), cache.get(11, 0));
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringLruCache<String, String>(0, 1));
+    }
+
+    @Test
+    void staysWithinCapacityUnderConcurrentWriters() throws Exception {
+        ExpiringLruCache<Integer, Integer> cache = new ExpiringLruCache<>(256, 8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 10_000;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    cache.put(offset + i, i, Long.MAX_VALUE);
+                    cache.get(offset + i / 2, 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(cache.size() <= 256, "size " + cache.size());
+    }
+}
@@ -0,0 +1,104 @@
+package com.legendaryUser.legendary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Saturates the limit and completes one request with the given latency
+    private static void sample(GradientConcurrencyLimit limit, long rttNanos, int latencyClass) {
+        int inFlight = limit.getLimit();
+        limit.tryAcquire(1.0);
+        limit.release(rttNanos, inFlight, latencyClass);
+    }
+
+    @Test
+    void sharesBelowOneAreRefusedFirst() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100, 0.1, 1.5, 10, 100);
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i + 1, limit.tryAcquire(0.7));
+        }
+        assertEquals(-1, limit.tryAcquire(0.7));
+        assertEquals(8, limit.tryAcquire(1.0));
+        assertEquals(8, limit.getInFlight());
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtTheBaseline() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 1, 400, 0.1, 1.5, 10, 100);
+        for (int i = 0; i < 200; i++) {
+            sample(limit, 5 * MILLIS, 0);
+        }
+        assertTrue(limit.getLimit() > 100, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 1, 400, 0.1, 1.5, 10, 100);
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire(1.0);
+            limit.release(5 * MILLIS, 1);
+        }
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    void settlesWhenTheDatasourceSlowsDown() {
+        // A pool of 4 connections: past 4 in flight, requests queue and latency grows with the backlog
+        int pool = 4;
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 8, 400, 0.1, 1.5, 10, 600);
+        for (int i = 0; i < 300; i++) {
+            sample(limit, 5 * MILLIS, 0);
+        }
+        int healthy = limit.getLimit();
+
+        // Each query now takes ten times as long, for several baseline windows
+        int lowest = Integer.MAX_VALUE;
+        int highest = 0;
+        for (int i = 0; i < 6_000; i++) {
+            sample(limit, 50 * MILLIS * Math.max(pool, limit.getLimit()) / pool, 0);
+            if (i >= 3_000) {
+                lowest = Math.min(lowest, limit.getLimit());
+                highest = Math.max(highest, limit.getLimit());
+            }
+        }
+
+        // Bounded and steady, rather than re-learning the queueing as its baseline every window
+        assertTrue(healthy > 100, "healthy " + healthy);
+        assertTrue(highest <= 5 * pool, "highest " + highest);
+        assertTrue(highest - lowest <= 2, "between " + lowest + " and " + highest);
+    }
+
+    @Test
+    void aSlowRequestClassIsMeasuredAgainstItsOwnBaseline() {
+        GradientConcurrencyLimit perClass = new GradientConcurrencyLimit(50, 8, 400, 0.1, 1.5, 10, 600, 2);
+        GradientConcurrencyLimit shared = new GradientConcurrencyLimit(50, 8, 400, 0.1, 1.5, 10, 600);
+        // Fast reads and slow registrations interleaved, neither of them queueing
+        for (int i = 0; i < 500; i++) {
+            boolean read = i % 2 == 0;
+            long rtt = read ? 2 * MILLIS : 200 * MILLIS;
+            sample(perClass, rtt, read ? 0 : 1);
+            sample(shared, rtt, 0);
+        }
+
+        assertTrue(perClass.getLimit() > 50, "per class " + perClass.getLimit());
+        assertTrue(shared.getLimit() < 50, "shared " + shared.getLimit());
+    }
+
+    @Test
+    void rejectsInconsistentSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GradientConcurrencyLimit(5, 8, 400, 0.1, 1.5, 10, 600));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GradientConcurrencyLimit(50, 8, 400, 0.1, 1.5, 10, 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GradientConcurrencyLimit(50, 8, 400, 0.1, 1.5, 10, 600, 0));
+    }
+}
@@ -0,0 +1,59 @@
+package com.legendaryUser.legendary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HeavyHittersTest {
+
+    private static List<String> labels(HeavyHitters hitters) {
+        return hitters.snapshot().stream().map(HeavyHitters.Entry::getLabel).collect(Collectors.toList());
+    }
+
+    @Test
+    void keepsTheKLargestCountsHighestFirst() {
+        HeavyHitters hitters = new HeavyHitters(3);
+        hitters.offer(1, "a", 5);
+        hitters.offer(2, "b", 50);
+        hitters.offer(3, "c", 20);
+        hitters.offer(4, "d", 1);
+        hitters.offer(5, "e", 30);
+
+        assertEquals(List.of("b", "e", "c"), labels(hitters));
+    }
+
+    @Test
+    void raisesAnExistingKeyInsteadOfAddingItTwice() {
+        HeavyHitters hitters = new HeavyHitters(3);
+        hitters.offer(1, "a", 5);
+        hitters.offer(1, "a", 9);
+        hitters.offer(1, "a", 7);
+
+        assertEquals(1, hitters.snapshot().size());
+        assertEquals(9, hitters.snapshot().get(0).getCount());
+    }
+
+    @Test
+    void refreshDropsKeysWhoseCountFellToZero() {
+        HeavyHitters hitters = new HeavyHitters(2);
+        hitters.offer(1, "a", 5);
+        hitters.offer(2, "b", 8);
+
+        hitters.refresh(hash -> hash == 1 ? 0 : 3);
+
+        assertEquals(List.of("b"), labels(hitters));
+        assertEquals(3, hitters.snapshot().get(0).getCount());
+        // The freed slot takes any new key again
+        hitters.offer(3, "c", 1);
+        assertEquals(List.of("b", "c"), labels(hitters));
+    }
+
+    @Test
+    void rejectsNonPositiveK() {
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(0));
+    }
+}
@@ -0,0 +1,83 @@
+package com.legendaryUser.legendary.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedAddressTest {
+
+    private static long ipv4(String s) {
+        return PackedAddress.parseIpv4(s, 0, s.length());
+    }
+
+    private static boolean ipv6(String s) {
+        return PackedAddress.parseIpv6(s, 0, s.length(), new long[10]);
+    }
+
+    @Test
+    void parsesDottedQuads() {
+        assertEquals(0xCB007107L, ipv4("203.0.113.7"));
+        assertEquals(0xFFFFFFFFL, ipv4("255.255.255.255"));
+        assertEquals(0L, ipv4("0.0.0.0"));
+
+        assertEquals(-1, ipv4("256.0.0.1"));
+        assertEquals(-1, ipv4("1.2.3"));
+        assertEquals(-1, ipv4("1.2.3.4.5"));
+        assertEquals(-1, ipv4("1..2.3"));
+        assertEquals(-1, ipv4("1.2.3.4 "));
+    }
+
+    @Test
+    void parsesIpv6LiteralsIntoHighAndLowHalves() {
+        long[] out = new long[10];
+        String address = "2001:db8::8a2e:370:7334";
+        assertTrue(PackedAddress.parseIpv6(address, 0, address.length(), out));
+        assertEquals(0x20010DB800000000L, out[8]);
+        assertEquals(0x00008A2E03707334L, out[9]);
+
+        assertTrue(ipv6("::1"));
+        assertTrue(ipv6("::"));
+        assertTrue(ipv6("fe80::1%eth0"));
+        assertTrue(ipv6("::ffff:203.0.113.7"));
+
+        assertFalse(ipv6(":::"));
+        assertFalse(ipv6("1:2:3:4:5:6:7:8:9"));
+        assertFalse(ipv6("2001:db8::1::2"));
+        assertFalse(ipv6("12345::"));
+        assertFalse(ipv6("2001:db8:"));
+        assertFalse(ipv6("1:2:3:4:5:6:7"));
+    }
+
+    @Test
+    void equivalentSpellingsPackIdentically() {
+        assertEquals(PackedAddress.fingerprint("203.0.113.7"), PackedAddress.fingerprint("::ffff:203.0.113.7"));
+        assertEquals(PackedAddress.fingerprint("2001:db8::1"), PackedAddress.fingerprint("2001:0db8:0:0:0:0:0:0001"));
+        assertEquals(PackedAddress.fingerprint("2001:db8::1"), PackedAddress.fingerprint("2001:DB8::1"));
+        assertNotEquals(PackedAddress.fingerprint("203.0.113.7"), PackedAddress.fingerprint("203.0.113.8"));
+    }
+
+    @Test
+    void usesTheFirstForwardedAddress() {
+        assertEquals(PackedAddress.fingerprint("203.0.113.7"),
+                PackedAddress.fingerprint(" 203.0.113.7 , 10.0.0.1, 10.0.0.2"));
+    }
+
+    @Test
+    void subnetsAreSlash24AndSlash64() {
+        assertEquals(PackedAddress.subnetFingerprint("203.0.113.7"), PackedAddress.subnetFingerprint("203.0.113.200"));
+        assertEquals(PackedAddress.subnetFingerprint("203.0.113.7"), PackedAddress.subnetFingerprint("::ffff:203.0.113.9"));
+        assertNotEquals(PackedAddress.subnetFingerprint("203.0.113.7"), PackedAddress.subnetFingerprint("203.0.114.7"));
+
+        assertEquals(PackedAddress.subnetFingerprint("2001:db8::1"), PackedAddress.subnetFingerprint("2001:db8::ffff:1"));
+        assertNotEquals(PackedAddress.subnetFingerprint("2001:db8::1"), PackedAddress.subnetFingerprint("2001:db8:0:1::1"));
+    }
+
+    @Test
+    void hashesAnythingElseAsText() {
+        assertEquals(PackedAddress.fingerprint("unknown"), PackedAddress.fingerprint("unknown"));
+        assertNotEquals(PackedAddress.fingerprint("unknown"), PackedAddress.fingerprint("unknown2"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.legendaryUser.legendary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> flight = new SingleFlight<>();
+
+    // Starts a caller that joins the action already running for the key
+    private Thread joiner(String key, AtomicInteger runs, AtomicInteger joined, AtomicReference<Throwable> failure) {
+        Thread thread = new Thread(() -> {
+            try {
+                if (!flight.execute(key, runs::incrementAndGet, 5_000)) {
+                    joined.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TIMED_WAITING
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @Test
+    void concurrentCallersForOneKeyShareASingleRun() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        AtomicInteger joined = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> joiners = new ArrayList<>();
+
+        Thread leader = new Thread(() -> flight.execute("ada@example.com", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 5_000));
+        leader.start();
+        started.await();
+        for (int i = 0; i < 8; i++) {
+            joiners.add(joiner("ada@example.com", runs, joined, failure));
+        }
+        awaitWaiting(joiners);
+        release.countDown();
+        leader.join();
+        for (Thread thread : joiners) {
+            thread.join();
+        }
+
+        assertEquals(1, runs.get());
+        assertEquals(8, joined.get());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    void aFailureReachesEveryCallerWaitingOnIt() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        AtomicInteger joined = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException smtpDown = new IllegalStateException("SMTP unavailable");
+
+        Thread leader = new Thread(() -> assertThrows(IllegalStateException.class,
+                () -> flight.execute("ada@example.com", () -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw smtpDown;
+                }, 5_000)));
+        leader.start();
+        started.await();
+        Thread waiter = joiner("ada@example.com", runs, joined, failure);
+        awaitWaiting(List.of(waiter));
+        release.countDown();
+        leader.join();
+        waiter.join();
+
+        assertSame(smtpDown, failure.get());
+        assertEquals(0, runs.get());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    void aWaiterThatTimesOutReturnsWithoutRunningTheAction() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread leader = new Thread(() -> flight.execute("ada@example.com", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 5_000));
+        leader.start();
+        started.await();
+
+        AtomicInteger runs = new AtomicInteger();
+        assertFalse(flight.execute("ada@example.com", runs::incrementAndGet, 20));
+        assertEquals(0, runs.get());
+
+        release.countDown();
+        leader.join();
+    }
+
+    @Test
+    void sequentialAndUnrelatedCallsEachRun() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(flight.execute("ada@example.com", runs::incrementAndGet, 100));
+        assertTrue(flight.execute("ada@example.com", runs::incrementAndGet, 100));
+        assertTrue(flight.execute("bob@example.com", runs::incrementAndGet, 100));
+
+        assertEquals(3, runs.get());
+        assertEquals(0, flight.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.legendaryUser.legendary.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimingWheelStoreTest {
+
+    private static final String OVERFLOW = "overflow";
+
+    @Test
+    void createsEachEntryOnce() {
+        TimingWheelStore<String, String> store = new TimingWheelStore<>(10, 1_000, 100, OVERFLOW);
+        AtomicInteger created = new AtomicInteger();
+
+        String first = store.get("a", k -> k + created.incrementAndGet(), 0);
+        String second = store.get("a", k -> k + created.incrementAndGet(), 50);
+
+        assertSame(first, second);
+        assertEquals(1, created.get());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void expiresEntriesIdleForTheWholeTtl() {
+        TimingWheelStore<String, String> store = new TimingWheelStore<>(10, 1_000, 100, OVERFLOW);
+        store.get("a", k -> "A", 0);
+
+        store.advance(900);
+        assertEquals("A", store.getIfPresent("a", 900));
+
+        store.advance(1_000);
+        assertEquals(1, store.size());
+        store.advance(2_000);
+        assertNull(store.getIfPresent("a", 2_000));
+        assertEquals(0, store.size());
+        assertEquals(1, store.expirationCount());
+    }
+
+    @Test
+    void accessPushesExpiryBack() {
+        TimingWheelStore<String, String> store = new TimingWheelStore<>(10, 1_000, 100, OVERFLOW);
+        store.get("a", k -> "A", 0);
+        store.getIfPresent("a", 800);
+
+        for (long now = 0; now <= 1_700; now += 100) {
+            store.advance(now);
+        }
+        assertEquals(1, store.size());
+
+        for (long now = 1_800; now <= 2_000; now += 100) {
+            store.advance(now);
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void keysBeyondMaxEntriesShareTheOverflowValue() {
+        TimingWheelStore<String, String> store = new TimingWheelStore<>(2, 1_000, 100, OVERFLOW);
+        store.get("a", k -> "A", 0);
+        store.get("b", k -> "B", 0);
+
+        assertSame(OVERFLOW, store.get("c", k -> "C", 0));
+        assertEquals(2, store.size());
+        assertEquals(1, store.overflowCount());
+        assertNull(store.getIfPresent("c", 0));
+    }
+
+    @Test
+    void aLateAdvanceCatchesUpOnEveryMissedTick() {
+        TimingWheelStore<Integer, Integer> store = new TimingWheelStore<>(1_000, 1_000, 100, -1);
+        store.advance(0);
+        for (int i = 0; i < 500; i++) {
+            store.get(i, k -> k, i * 10L);
+        }
+
+        store.advance(60_000);
+
+        assertEquals(0, store.size());
+        assertEquals(500, store.expirationCount());
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelStore<String, String>(0, 1_000, 100, OVERFLOW));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelStore<String, String>(10, 0, 100, OVERFLOW));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelStore<String, String>(10, 1_000, 0, OVERFLOW));
+    }
+}